@@ -0,0 +1,164 @@
+// AStarSearch.java
+import java.util.Arrays;
+
+// A* по упакованным состояниям: состояние - это индекс клетки x * cols + y.
+// Доска во время поиска не меняется, поэтому узел не копирует её,
+// а g-стоимости и родители хранятся в примитивных массивах.
+public class AStarSearch {
+
+    static final int[] DX = {-1, 1, 0, 0};
+    static final int[] DY = {0, 0, -1, 1};
+
+    private static final int UNKNOWN = Integer.MAX_VALUE;
+
+    public static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return search(board, startX, startY, options, null);
+    }
+
+    // stats - куда записать счётчики поиска, или null. Счёт идёт в локальных
+    // переменных и переносится в stats один раз, на выходе
+    static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+        SearchGraph graph = options.stopGraph() ? board.stopGraph() : board;
+        Heuristic heuristic = options.heuristic();
+        int startCell = board.cell(startX, startY);
+        // До выделения массивов - их память тоже в бюджете
+        SearchBudget budget = SearchBudget.start(options);
+
+        int[] g = new int[graph.nodeCount()];
+        int[] parent = new int[graph.nodeCount()];
+        Arrays.fill(g, UNKNOWN);
+
+        OpenList openSet = options.openList().create();
+        long expanded = 0;
+        long generated = 0;
+        long duplicates = 0;
+        long slideSteps = 0;
+        long peakOpen = 0;
+        long visited = 0;
+        // Лучшая раскрытая вершина для частичного результата - с наименьшей оценкой до цели.
+        // Грубая эвристика (SLIDE_BOUND знает только 0, 1 и 2) даёт много равных оценок,
+        // из них берётся самая дальняя от старта
+        int best = -1;
+        int bestEstimate = Integer.MAX_VALUE;
+        int bestG = -1;
+        int start = graph.nodeOf(startCell);
+        if (start >= 0) {
+            g[start] = 0;
+            parent[start] = -1;
+            openSet.push(start, 0, heuristic.estimate(board, startCell));
+            visited++;
+        } else {
+            // Старт посреди льда не вершина графа: первым ходом попадаем в точки остановки
+            for (int dir = 0; dir < 4; dir++) {
+                int landing = board.slide(startCell, dir);
+                slideSteps++;
+                if (landing >= 0) {
+                    int node = graph.nodeOf(landing);
+                    visited += g[node] == UNKNOWN ? 1 : 0;
+                    g[node] = 1;
+                    parent[node] = -1;
+                    openSet.push(node, 1, 1 + heuristic.estimate(board, landing));
+                }
+            }
+        }
+        peakOpen = openSet.size();
+
+        while (!openSet.isEmpty()) {
+            long top = openSet.pop();
+            int current = (int) top;
+            int estimate = heuristic.estimate(board, graph.cellOf(current));
+
+            // Устаревшая запись: вершину уже нашли дешевле
+            if ((int) (top >>> 32) != g[current] + estimate) {
+                continue;
+            }
+
+            if (graph.isGoal(current)) {
+                if (stats != null) {
+                    stats.record(expanded, generated, duplicates, slideSteps, peakOpen, visited);
+                }
+                return reconstructSolution(board, graph, parent, current, startCell, start < 0);
+            }
+
+            if (budget.spent(expanded)) {
+                if (stats != null) {
+                    stats.record(expanded, generated, duplicates, slideSteps, peakOpen, visited);
+                }
+                return stoppedSolution(board, graph, parent, best, startCell, start < 0, budget.outcome());
+            }
+            expanded++;
+            if (isBetterPartial(estimate, g[current], bestEstimate, bestG)) {
+                bestEstimate = estimate;
+                bestG = g[current];
+                best = current;
+            }
+            for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+                int next = graph.edgeTarget(edge);
+                slideSteps++;
+                if (next < 0) {
+                    continue;
+                }
+                generated++;
+
+                int newG = g[current] + 1;
+                if (newG >= g[next]) {
+                    duplicates++;
+                } else {
+                    visited += g[next] == UNKNOWN ? 1 : 0;
+                    g[next] = newG;
+                    parent[next] = current;
+                    openSet.push(next, newG, newG + heuristic.estimate(board, graph.cellOf(next)));
+                }
+            }
+            peakOpen = Math.max(peakOpen, openSet.size());
+        }
+
+        if (stats != null) {
+            stats.record(expanded, generated, duplicates, slideSteps, peakOpen, visited);
+        }
+        return Solution.unsolved(board, startCell);
+    }
+
+    // Общий для A* и ParallelAStarSearch
+    static Solution reconstructSolution(CompiledBoard board, SearchGraph graph, int[] parent,
+                                        int goal, int startCell, boolean startOutside) {
+        return Solution.solved(board, path(board, graph, parent, goal, startCell, startOutside),
+                               startCell, graph.cellOf(goal));
+    }
+
+    // Выбор вершины для частичного результата: меньшая оценка до цели,
+    // при равной - больший пройденный путь. Общий для всех остановленных поисков
+    static boolean isBetterPartial(int estimate, int g, int bestEstimate, int bestG) {
+        return estimate < bestEstimate || (estimate == bestEstimate && g > bestG);
+    }
+
+    // Частичный результат остановленного поиска: путь до лучшей вершины best,
+    // пустой - если не раскрыта ни одна
+    static Solution stoppedSolution(CompiledBoard board, SearchGraph graph, int[] parent, int best,
+                                    int startCell, boolean startOutside, SearchOutcome outcome) {
+        if (best < 0) {
+            return Solution.stopped(board, new byte[0], startCell, startCell, outcome);
+        }
+        return Solution.stopped(board, path(board, graph, parent, best, startCell, startOutside),
+                                startCell, graph.cellOf(best), outcome);
+    }
+
+    // Коды ходов пишутся с конца в массив нужной длины - без сдвигов и промежуточных списков.
+    // startOutside - старт вне графа, его ход до первой вершины тоже записывается
+    private static byte[] path(CompiledBoard board, SearchGraph graph, int[] parent,
+                               int node, int startCell, boolean startOutside) {
+        int length = startOutside ? 1 : 0;
+        for (int n = node; parent[n] != -1; n = parent[n]) {
+            length++;
+        }
+
+        byte[] moves = new byte[length];
+        int cols = board.cols();
+        for (int i = length - 1; i >= 0; i--) {
+            int from = parent[node] != -1 ? graph.cellOf(parent[node]) : startCell;
+            moves[i] = Solution.direction(from, graph.cellOf(node), cols);
+            node = parent[node];
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,258 @@
+// BidirectionalSearch.java
+import java.util.Arrays;
+
+// Двунаправленный поиск в ширину по ходам: прямой фронт растёт от старта,
+// обратный - от всех целей по предшественникам (из каких клеток скольжение
+// заканчивается в данной). Все ходы стоят 1, поэтому фронты расширяются
+// целыми слоями, и первая встреча в слое даёт оптимальную длину пути.
+// Эвристика в этом режиме не используется.
+public class BidirectionalSearch {
+
+    private static final int UNSEEN = -1;
+    // Результат раскрытия слоя: поиск остановлен бюджетом
+    private static final int STOPPED = -2;
+
+    public static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return search(board, startX, startY, options, null);
+    }
+
+    static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+        SearchGraph graph = options.stopGraph() ? board.stopGraph() : board;
+        int startCell = board.cell(startX, startY);
+        if (board.isGoal(startCell)) {
+            return Solution.solved(board, new byte[0], startCell, startCell);
+        }
+        SearchBudget budget = SearchBudget.start(options);
+        int[] goals = graph.goalNodes();
+        if (goals.length == 0) {
+            return Solution.unsolved(board, startCell);
+        }
+
+        int size = graph.nodeCount();
+        int[] forwardDistance = new int[size];
+        int[] backwardDistance = new int[size];
+        // parent - предыдущая вершина от старта, next - следующая вершина к цели
+        int[] parent = new int[size];
+        int[] next = new int[size];
+        Arrays.fill(forwardDistance, UNSEEN);
+        Arrays.fill(backwardDistance, UNSEEN);
+
+        Frontier forward = new Frontier();
+        Frontier backward = new Frontier();
+
+        for (int goal : goals) {
+            backwardDistance[goal] = 0;
+            next[goal] = -1;
+            backward.add(goal);
+        }
+
+        int meeting = -1;
+        int start = graph.nodeOf(startCell);
+        if (start >= 0) {
+            forwardDistance[start] = 0;
+            parent[start] = -1;
+            forward.add(start);
+        } else {
+            // Старт вне графа: первый слой - точки остановки после одного хода
+            for (int dir = 0; dir < 4; dir++) {
+                int landing = board.slide(startCell, dir);
+                forward.slideSteps++;
+                if (landing < 0) {
+                    continue;
+                }
+                forward.generated++;
+                int node = graph.nodeOf(landing);
+                if (forwardDistance[node] == UNSEEN) {
+                    forwardDistance[node] = 1;
+                    parent[node] = -1;
+                    forward.add(node);
+                    if (meeting == -1 && backwardDistance[node] != UNSEEN) {
+                        meeting = node;
+                    }
+                }
+            }
+        }
+
+        long peakOpen = forward.size() + backward.size();
+        while (meeting == -1 && !forward.isEmpty() && !backward.isEmpty()) {
+            // Расширяем меньший фронт
+            long done = forward.expanded + backward.expanded;
+            if (forward.size() <= backward.size()) {
+                meeting = expandForward(graph, forward, forwardDistance, backwardDistance, parent, budget, done);
+            } else {
+                meeting = expandBackward(graph, backward, backwardDistance, forwardDistance, next, budget, done);
+            }
+            peakOpen = Math.max(peakOpen, forward.size() + backward.size());
+        }
+
+        if (stats != null) {
+            stats.record(forward.expanded + backward.expanded, forward.generated + backward.generated,
+                         forward.duplicates + backward.duplicates, forward.slideSteps + backward.slideSteps,
+                         peakOpen, forward.added + backward.added);
+        }
+        if (meeting == STOPPED) {
+            return stoppedSolution(board, graph, options.heuristic(), forwardDistance, parent,
+                                   startCell, start < 0, budget.outcome());
+        }
+        if (meeting == -1) {
+            return Solution.unsolved(board, startCell);
+        }
+        return joinMoves(board, graph, parent, next, meeting, startCell);
+    }
+
+    // Раскрывает весь слой; возвращает вершину встречи фронтов, -1 или STOPPED.
+    // done - раскрыто обоими фронтами до этого слоя, для бюджета
+    private static int expandForward(SearchGraph graph, Frontier frontier, int[] distance, int[] otherDistance,
+                                     int[] parent, SearchBudget budget, long done) {
+        int meeting = -1;
+        int layer = frontier.size();
+        for (int i = 0; i < layer; i++) {
+            if (budget.spent(done + i)) {
+                frontier.expanded += i;
+                return STOPPED;
+            }
+            int current = frontier.get(i);
+            for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+                int neighbor = graph.edgeTarget(edge);
+                frontier.slideSteps++;
+                if (neighbor < 0) {
+                    continue;
+                }
+                frontier.generated++;
+                if (distance[neighbor] != UNSEEN) {
+                    frontier.duplicates++;
+                    continue;
+                }
+                distance[neighbor] = distance[current] + 1;
+                parent[neighbor] = current;
+                frontier.add(neighbor);
+                if (meeting == -1 && otherDistance[neighbor] != UNSEEN) {
+                    meeting = neighbor;
+                }
+            }
+        }
+        frontier.expanded += layer;
+        frontier.dropFirst(layer);
+        return meeting;
+    }
+
+    private static int expandBackward(SearchGraph graph, Frontier frontier, int[] distance, int[] otherDistance,
+                                      int[] next, SearchBudget budget, long done) {
+        int meeting = -1;
+        int layer = frontier.size();
+        for (int i = 0; i < layer; i++) {
+            if (budget.spent(done + i)) {
+                frontier.expanded += i;
+                return STOPPED;
+            }
+            int current = frontier.get(i);
+            for (int p = graph.predecessorStart(current); p < graph.predecessorEnd(current); p++) {
+                int neighbor = graph.predecessor(p);
+                frontier.slideSteps++;
+                frontier.generated++;
+                if (distance[neighbor] != UNSEEN) {
+                    frontier.duplicates++;
+                    continue;
+                }
+                distance[neighbor] = distance[current] + 1;
+                next[neighbor] = current;
+                frontier.add(neighbor);
+                if (meeting == -1 && otherDistance[neighbor] != UNSEEN) {
+                    meeting = neighbor;
+                }
+            }
+        }
+        frontier.expanded += layer;
+        frontier.dropFirst(layer);
+        return meeting;
+    }
+
+    // Частичный результат: среди вершин, уже достигнутых прямым фронтом, - самая близкая
+    // к цели по эвристике, при равенстве - самая дальняя от старта; путь до неё идёт
+    // по цепочке parent, как у A*
+    private static Solution stoppedSolution(CompiledBoard board, SearchGraph graph, Heuristic heuristic,
+                                            int[] forwardDistance, int[] parent, int startCell,
+                                            boolean startOutside, SearchOutcome outcome) {
+        int best = -1;
+        int bestEstimate = Integer.MAX_VALUE;
+        int bestG = -1;
+        for (int node = 0; node < forwardDistance.length; node++) {
+            if (forwardDistance[node] != UNSEEN) {
+                int estimate = heuristic.estimate(board, graph.cellOf(node));
+                if (AStarSearch.isBetterPartial(estimate, forwardDistance[node], bestEstimate, bestG)) {
+                    bestEstimate = estimate;
+                    bestG = forwardDistance[node];
+                    best = node;
+                }
+            }
+        }
+        return AStarSearch.stoppedSolution(board, graph, parent, best, startCell, startOutside, outcome);
+    }
+
+    // Ходы до вершины встречи идут по цепочке parent (пишутся с конца), после неё - по next.
+    // Если старт вне графа, у корня цепочки parent нет, и первый ход идёт от стартовой клетки
+    private static Solution joinMoves(CompiledBoard board, SearchGraph graph, int[] parent, int[] next,
+                                      int meeting, int startCell) {
+        int forwardMoves = graph.nodeOf(startCell) < 0 ? 1 : 0;
+        for (int node = meeting; parent[node] != -1; node = parent[node]) {
+            forwardMoves++;
+        }
+        int backwardMoves = 0;
+        int goal = meeting;
+        for (; next[goal] != -1; goal = next[goal]) {
+            backwardMoves++;
+        }
+
+        byte[] moves = new byte[forwardMoves + backwardMoves];
+        int cols = board.cols();
+        int node = meeting;
+        for (int i = forwardMoves - 1; i >= 0; i--) {
+            int from = parent[node] != -1 ? graph.cellOf(parent[node]) : startCell;
+            moves[i] = Solution.direction(from, graph.cellOf(node), cols);
+            node = parent[node];
+        }
+        node = meeting;
+        for (int i = forwardMoves; i < moves.length; i++) {
+            moves[i] = Solution.direction(graph.cellOf(node), graph.cellOf(next[node]), cols);
+            node = next[node];
+        }
+        return Solution.solved(board, moves, startCell, graph.cellOf(goal));
+    }
+
+    // Фронт поиска: текущий слой в начале массива, следующий дописывается в конец.
+    // Заодно считает работу своей стороны поиска для SearchStats
+    private static final class Frontier {
+        private int[] cells = new int[64];
+        private int size;
+        long added;
+        long expanded;
+        long generated;
+        long duplicates;
+        long slideSteps;
+
+        void add(int cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+            added++;
+        }
+
+        int get(int index) {
+            return cells[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void dropFirst(int count) {
+            System.arraycopy(cells, count, cells, 0, size - count);
+            size -= count;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+// BinaryHeapOpenList.java
+import java.util.Arrays;
+
+// Двоичная куча на примитивном массиве long: O(log n) на операцию,
+// при равных f раньше выходит клетка с меньшим индексом
+public class BinaryHeapOpenList implements OpenList {
+
+    private long[] heap = new long[64];
+    private int size;
+
+    @Override
+    public void push(int node, int g, int f) {
+        long value = ((long) f << 32) | node;
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    @Override
+    public long pop() {
+        long result = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
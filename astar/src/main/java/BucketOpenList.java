@@ -0,0 +1,110 @@
+// BucketOpenList.java
+import java.util.Arrays;
+
+// Очередь Дейкстры-Диала для небольших целых стоимостей: корзина на каждое f,
+// внутри неё - корзины по h, чтобы при равном f первой выходила клетка
+// с большим g (она ближе к цели). Элементы корзин - стеки на массивах int,
+// освобождённые ячейки переиспользуются. У каждой строки f есть курсор minH -
+// наименьшее h, где может лежать элемент: push его опускает, pop сдвигает вперёд.
+// push - O(1), pop - O(1) амортизированно при монотонном f (допустимая
+// согласованная эвристика) и ограниченном h: пустые корзины строки pop проходит
+// лишь после того, как push опустил курсор ниже них.
+public class BucketOpenList implements OpenList {
+
+    private static final int EMPTY = -1;
+
+    // heads[f][h] - вершина стека корзины или EMPTY
+    private int[][] heads = new int[64][];
+    // minH[f] - ниже этого h в строке f пусто; Integer.MAX_VALUE - строка пуста
+    private int[] minH = filledCursors(64);
+    private int[] nodes = new int[256];
+    private int[] next = new int[256];
+    private int used;
+    private int free = EMPTY;
+    private int size;
+    private int minF;
+
+    @Override
+    public void push(int node, int g, int f) {
+        int h = f - g;
+        int[] row = row(f, h);
+
+        int entry;
+        if (free != EMPTY) {
+            entry = free;
+            free = next[entry];
+        } else {
+            if (used == nodes.length) {
+                nodes = Arrays.copyOf(nodes, used * 2);
+                next = Arrays.copyOf(next, used * 2);
+            }
+            entry = used++;
+        }
+
+        nodes[entry] = node;
+        next[entry] = row[h];
+        row[h] = entry;
+        size++;
+        if (h < minH[f]) {
+            minH[f] = h;
+        }
+        if (f < minF) {
+            minF = f;
+        }
+    }
+
+    @Override
+    public long pop() {
+        while (true) {
+            int[] row = heads[minF];
+            if (row != null) {
+                for (int h = minH[minF]; h < row.length; h++) {
+                    int entry = row[h];
+                    if (entry != EMPTY) {
+                        minH[minF] = h;
+                        row[h] = next[entry];
+                        next[entry] = free;
+                        free = entry;
+                        size--;
+                        return ((long) minF << 32) | nodes[entry];
+                    }
+                }
+                minH[minF] = Integer.MAX_VALUE;
+            }
+            minF++;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int[] row(int f, int h) {
+        if (f >= heads.length) {
+            int oldLength = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(oldLength * 2, f + 1));
+            minH = Arrays.copyOf(minH, heads.length);
+            Arrays.fill(minH, oldLength, minH.length, Integer.MAX_VALUE);
+        }
+        int[] row = heads[f];
+        if (row == null || h >= row.length) {
+            int oldLength = row == null ? 0 : row.length;
+            row = row == null ? new int[Math.max(4, h + 1)] : Arrays.copyOf(row, Math.max(oldLength * 2, h + 1));
+            Arrays.fill(row, oldLength, row.length, EMPTY);
+            heads[f] = row;
+        }
+        return row;
+    }
+
+    private static int[] filledCursors(int length) {
+        int[] cursors = new int[length];
+        Arrays.fill(cursors, Integer.MAX_VALUE);
+        return cursors;
+    }
+}
@@ -0,0 +1,18 @@
+// CancellationToken.java
+
+// Кооперативная отмена поиска: SearchOptions.cancellation(token), затем cancel()
+// из любого потока. Поиск замечает отмену на ближайшей проверке бюджета
+// (каждые SearchBudget.CHECK_INTERVAL раскрытий) и возвращает CANCELLED.
+// Токен одноразовый: все поиски с ним после cancel() сразу отменяются
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,272 @@
+// CompiledBoard.java
+import java.util.Arrays;
+
+// Доска, подготовленная для поиска: клетки лежат в плоском массиве,
+// а для каждой клетки и каждого из 4 направлений заранее посчитано,
+// где закончится скольжение. Доска неизменяема, поэтому один экземпляр
+// можно переиспользовать между вызовами solveIcePuzzle и между потоками.
+// Как граф поиска: вершина - клетка, рёбра - 4 ячейки таблицы скольжений.
+public class CompiledBoard implements SearchGraph {
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    private final int rows;
+    private final int cols;
+    private final char[] cells;
+    // jumps[cell * 4 + dir] - клетка остановки или -1, если сдвинуться нельзя
+    private final int[] jumps;
+    // Цели и строки/столбцы, где они есть - собираются один раз для всех эвристик
+    private final int[] goals;
+    private final boolean[] goalRows;
+    private final boolean[] goalCols;
+    // Обратные рёбра в формате CSR: из каких клеток скольжение заканчивается в данной.
+    // Строятся при первом обращении
+    private volatile int[] predecessorOffsets;
+    private int[] predecessors;
+    private volatile StopGraph stopGraph;
+    private volatile DistanceField distanceField;
+
+    private CompiledBoard(int rows, int cols, char[] cells) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.jumps = new int[rows * cols * 4];
+        this.goalRows = new boolean[rows];
+        this.goalCols = new boolean[cols];
+        buildJumps();
+        this.goals = collectGoals();
+    }
+
+    public static CompiledBoard compile(char[][] board) {
+        int rows = board.length;
+        int cols = board[0].length;
+        char[] cells = new char[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(board[i], 0, cells, i * cols, cols);
+        }
+        return new CompiledBoard(rows, cols, cells);
+    }
+
+    // Один линейный проход на направление: клетку обрабатываем после соседа,
+    // в которого она скользит, и берём его точку остановки
+    private void buildJumps() {
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < cols; y++) {
+                link(x, y, UP);
+                link(x, y, LEFT);
+            }
+        }
+        for (int x = rows - 1; x >= 0; x--) {
+            for (int y = cols - 1; y >= 0; y--) {
+                link(x, y, DOWN);
+                link(x, y, RIGHT);
+            }
+        }
+    }
+
+    private void link(int x, int y, int dir) {
+        int cell = x * cols + y;
+        int nextX = x + AStarSearch.DX[dir];
+        int nextY = y + AStarSearch.DY[dir];
+
+        if (cells[cell] == 'X' || nextX < 0 || nextX >= rows || nextY < 0 || nextY >= cols) {
+            jumps[cell * 4 + dir] = -1;
+            return;
+        }
+
+        int next = nextX * cols + nextY;
+        if (cells[next] == 'X') {
+            jumps[cell * 4 + dir] = -1;
+        } else if (cells[next] == 'G') {
+            jumps[cell * 4 + dir] = next;
+        } else {
+            int landing = jumps[next * 4 + dir];
+            jumps[cell * 4 + dir] = landing == -1 ? next : landing;
+        }
+    }
+
+    private int[] collectGoals() {
+        int count = 0;
+        for (char c : cells) {
+            if (c == 'G') {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        int i = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == 'G') {
+                result[i++] = cell;
+                goalRows[cell / cols] = true;
+                goalCols[cell % cols] = true;
+            }
+        }
+        return result;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public int cell(int x, int y) {
+        return x * cols + y;
+    }
+
+    public char at(int cell) {
+        return cells[cell];
+    }
+
+    @Override
+    public boolean isGoal(int cell) {
+        return cells[cell] == 'G';
+    }
+
+    // Клетки целей; массив общий, не изменять
+    public int[] goals() {
+        return goals;
+    }
+
+    public boolean isOnGoalLine(int cell) {
+        return goalRows[cell / cols] || goalCols[cell % cols];
+    }
+
+    // Клетка, где закончится скольжение из cell в направлении dir, или -1
+    public int slide(int cell, int dir) {
+        return jumps[cell * 4 + dir];
+    }
+
+    // Граф точек остановки строится один раз и разделяется всеми запросами к доске
+    public StopGraph stopGraph() {
+        StopGraph graph = stopGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = stopGraph;
+                if (graph == null) {
+                    graph = StopGraph.build(this);
+                    stopGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    // Поле расстояний до целей: считается при первом запросе и кэшируется.
+    // Доска неизменяема, поэтому поле не устаревает; invalidateDistanceField()
+    // освобождает память, следующий запрос посчитает его заново
+    public DistanceField distanceField() {
+        DistanceField field = distanceField;
+        if (field == null) {
+            synchronized (this) {
+                field = distanceField;
+                if (field == null) {
+                    field = DistanceField.build(this);
+                    distanceField = field;
+                }
+            }
+        }
+        return field;
+    }
+
+    public void invalidateDistanceField() {
+        distanceField = null;
+    }
+
+    @Override
+    public int nodeCount() {
+        return cells.length;
+    }
+
+    @Override
+    public int nodeOf(int cell) {
+        return cell;
+    }
+
+    @Override
+    public int cellOf(int node) {
+        return node;
+    }
+
+    @Override
+    public int[] goalNodes() {
+        return goals;
+    }
+
+    @Override
+    public int edgeStart(int node) {
+        return node * 4;
+    }
+
+    @Override
+    public int edgeEnd(int node) {
+        return node * 4 + 4;
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return jumps[edge];
+    }
+
+    // Предшественники клетки - predecessor(i) для i в [predecessorStart, predecessorEnd)
+    @Override
+    public int predecessorStart(int cell) {
+        return predecessorOffsets()[cell];
+    }
+
+    @Override
+    public int predecessorEnd(int cell) {
+        return predecessorOffsets()[cell + 1];
+    }
+
+    @Override
+    public int predecessor(int index) {
+        return predecessors[index];
+    }
+
+    private int[] predecessorOffsets() {
+        int[] offsets = predecessorOffsets;
+        if (offsets == null) {
+            synchronized (this) {
+                offsets = predecessorOffsets;
+                if (offsets == null) {
+                    offsets = buildPredecessors();
+                    predecessorOffsets = offsets;
+                }
+            }
+        }
+        return offsets;
+    }
+
+    // Подсчёт входящих рёбер, префиксные суммы, затем раскладка - два линейных прохода
+    private int[] buildPredecessors() {
+        int[] offsets = new int[cells.length + 1];
+        for (int target : jumps) {
+            if (target >= 0) {
+                offsets[target + 1]++;
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            offsets[cell + 1] += offsets[cell];
+        }
+
+        int[] fill = Arrays.copyOf(offsets, cells.length);
+        predecessors = new int[offsets[cells.length]];
+        for (int i = 0; i < jumps.length; i++) {
+            if (jumps[i] >= 0) {
+                predecessors[fill[jumps[i]]++] = i / 4;
+            }
+        }
+        return offsets;
+    }
+}
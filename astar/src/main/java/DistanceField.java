@@ -0,0 +1,78 @@
+// DistanceField.java
+import java.util.Arrays;
+
+// Поле расстояний до ближайшей цели для каждой клетки доски - обратный поиск
+// в ширину от всех 'G' по предшественникам, как в sliding/IcePuzzleSolver.solvePuzzle.
+// Строится один раз, после чего для любого старта число ходов - O(1),
+// а оптимальный путь - жадный спуск по полю за O(длины пути).
+public class DistanceField {
+
+    public static final int UNREACHABLE = -1;
+
+    private final CompiledBoard board;
+    private final int[] distances;
+
+    private DistanceField(CompiledBoard board, int[] distances) {
+        this.board = board;
+        this.distances = distances;
+    }
+
+    static DistanceField build(CompiledBoard board) {
+        int[] distances = new int[board.size()];
+        Arrays.fill(distances, UNREACHABLE);
+
+        // Очередь - массив клеток: каждая клетка попадает в неё не больше одного раза
+        int[] queue = new int[board.size()];
+        int head = 0;
+        int tail = 0;
+        for (int goal : board.goals()) {
+            distances[goal] = 0;
+            queue[tail++] = goal;
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int p = board.predecessorStart(current); p < board.predecessorEnd(current); p++) {
+                int previous = board.predecessor(p);
+                if (distances[previous] == UNREACHABLE) {
+                    distances[previous] = distances[current] + 1;
+                    queue[tail++] = previous;
+                }
+            }
+        }
+
+        return new DistanceField(board, distances);
+    }
+
+    // Минимальное число ходов до цели или UNREACHABLE
+    public int distance(int x, int y) {
+        return distances[board.cell(x, y)];
+    }
+
+    public int distanceOf(int cell) {
+        return distances[cell];
+    }
+
+    // Жадный спуск: на каждом шаге ход в клетку с расстоянием на 1 меньше
+    public Solution solveFrom(int startX, int startY) {
+        int start = board.cell(startX, startY);
+        int moves = distances[start];
+        if (moves == UNREACHABLE) {
+            return Solution.unsolved(board, start);
+        }
+
+        byte[] path = new byte[moves];
+        int cell = start;
+        for (int i = 0; i < moves; i++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int next = board.slide(cell, dir);
+                if (next >= 0 && distances[next] == moves - i - 1) {
+                    path[i] = (byte) dir;
+                    cell = next;
+                    break;
+                }
+            }
+        }
+        return Solution.solved(board, path, start, cell);
+    }
+}
@@ -0,0 +1,10 @@
+// Heuristic.java
+
+// Оценка числа ходов от клетки до ближайшей цели.
+// Допустимая эвристика никогда не переоценивает, и A* с ней возвращает оптимальный путь.
+public interface Heuristic {
+
+    int estimate(CompiledBoard board, int cell);
+
+    boolean isAdmissible();
+}
@@ -0,0 +1,77 @@
+// Heuristics.java
+
+// Встроенные эвристики: от самой дешёвой на узел к самой точной.
+// Все списки целей берутся из CompiledBoard, доску во время поиска не сканируем.
+public enum Heuristics implements Heuristic {
+
+    // Без оценки: A* вырождается в поиск в ширину по ходам
+    ZERO {
+        @Override
+        public int estimate(CompiledBoard board, int cell) {
+            return 0;
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return true;
+        }
+    },
+
+    // Нижняя граница числа скольжений: 0 на цели, 1 на строке или столбце
+    // с целью (последний ход идёт по линии цели), иначе 2. O(1) на узел
+    SLIDE_BOUND {
+        @Override
+        public int estimate(CompiledBoard board, int cell) {
+            if (board.isGoal(cell)) {
+                return 0;
+            }
+            return board.isOnGoalLine(cell) ? 1 : 2;
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return true;
+        }
+    },
+
+    // Точное расстояние из поля расстояний доски: A* идёт прямо к цели,
+    // но первый вызов на доске строит поле за O(клеток)
+    EXACT {
+        @Override
+        public int estimate(CompiledBoard board, int cell) {
+            int distance = board.distanceField().distanceOf(cell);
+            return distance == DistanceField.UNREACHABLE ? 0 : distance;
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return true;
+        }
+    },
+
+    // Манхэттенское расстояние в клетках, как в State.heuristic().
+    // Считает клетки, а не ходы, поэтому может переоценивать
+    MANHATTAN {
+        @Override
+        public int estimate(CompiledBoard board, int cell) {
+            int cols = board.cols();
+            int x = cell / cols;
+            int y = cell % cols;
+            int[] goals = board.goals();
+            if (goals.length == 0) {
+                return 0;
+            }
+            int minDistance = Integer.MAX_VALUE;
+            for (int goal : goals) {
+                int distance = Math.abs(x - goal / cols) + Math.abs(y - goal % cols);
+                minDistance = Math.min(minDistance, distance);
+            }
+            return minDistance;
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return false;
+        }
+    }
+}
@@ -69,6 +69,76 @@ public class IcePuzzleSolver {
     }
     
     public static List<String> solveIcePuzzle(char[][] initialBoard, int startX, int startY) {
+        return steps(solve(initialBoard, startX, startY, SearchOptions.defaults()));
+    }
+    
+    // Повторные запросы к одной доске переиспользуют её таблицу скольжений
+    public static List<String> solveIcePuzzle(CompiledBoard board, int startX, int startY) {
+        return solveIcePuzzle(board, startX, startY, SearchOptions.defaults());
+    }
+    
+    // Пустой список - решения нет или поиск остановлен бюджетом; частичный путь
+    // и причину остановки возвращает solve
+    public static List<String> solveIcePuzzle(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return steps(solve(board, startX, startY, options));
+    }
+    
+    private static List<String> steps(Solution solution) {
+        return solution.isSolved() ? solution.steps() : Collections.emptyList();
+    }
+    
+    // Компактный результат: коды ходов без строк; строки - через Solution.steps()
+    public static Solution solve(CompiledBoard board, int startX, int startY) {
+        return solve(board, startX, startY, SearchOptions.defaults());
+    }
+    
+    public static Solution solve(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return solve(board, startX, startY, options, 0);
+    }
+    
+    // Поиск от исходной доски: в счётчиках учитывается и время её компиляции
+    public static Solution solve(char[][] initialBoard, int startX, int startY, SearchOptions options) {
+        long compileStart = System.nanoTime();
+        CompiledBoard board = CompiledBoard.compile(initialBoard);
+        return solve(board, startX, startY, options, System.nanoTime() - compileStart);
+    }
+    
+    // Счётчики собираются, только если их попросили в options или пишется SearchEvent;
+    // иначе - прямой вызов поиска. Неиспользованное событие JIT убирает целиком
+    private static Solution solve(CompiledBoard board, int startX, int startY, SearchOptions options,
+                                  long compileNanos) {
+        SearchEvent event = new SearchEvent();
+        if (!options.stats() && !event.isEnabled()) {
+            return options.mode().search(board, startX, startY, options, null);
+        }
+        
+        SearchStats stats = new SearchStats(options.mode());
+        stats.compileNanos = compileNanos;
+        long allocatedBefore = SearchStats.threadAllocatedBytes();
+        event.begin();
+        long searchStart = System.nanoTime();
+        Solution solution = options.mode().search(board, startX, startY, options, stats);
+        stats.searchNanos = System.nanoTime() - searchStart;
+        event.end();
+        stats.allocatedBytes = SearchStats.threadAllocatedBytes() - allocatedBefore;
+        
+        if (event.shouldCommit()) {
+            event.mode = options.mode().name();
+            event.cells = board.size();
+            event.outcome = solution.outcome().name();
+            event.moves = solution.moveCount();
+            event.expanded = stats.expanded();
+            event.generated = stats.generated();
+            event.duplicates = stats.duplicates();
+            event.peakOpen = stats.peakOpen();
+            event.allocatedBytes = stats.allocatedBytes();
+            event.commit();
+        }
+        return options.stats() ? solution.withStats(stats) : solution;
+    }
+    
+    // Исходный поиск по объектам State - оставлен для сравнения с упакованным
+    static List<String> solveWithStates(char[][] initialBoard, int startX, int startY) {
         PriorityQueue<State> openSet = new PriorityQueue<>();
         Set<State> visited = new HashSet<>();
         
@@ -114,6 +184,19 @@ public class IcePuzzleSolver {
         return neighbors;
     }
     
+    // То же для скомпилированной доски: каждый сосед - один поиск в таблице.
+    // Возвращает число соседей, записанных в neighbors (массив длины не меньше 4)
+    public static int generateNeighbors(CompiledBoard board, int cell, int[] neighbors) {
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int next = board.slide(cell, dir);
+            if (next >= 0) {
+                neighbors[count++] = next;
+            }
+        }
+        return count;
+    }
+    
     public static State simulateSlide(State state, int dx, int dy, String direction) {
         int x = state.playerX;
         int y = state.playerY;
@@ -154,10 +237,11 @@ public class IcePuzzleSolver {
         State current = goalState;
         
         while (current.parent != null) {
-            solution.add(0, current.action + " to " + current);
+            solution.add(current.action + " to " + current);
             current = current.parent;
         }
         
+        Collections.reverse(solution);
         return solution;
     }
     
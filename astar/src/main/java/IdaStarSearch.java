@@ -0,0 +1,224 @@
+// IdaStarSearch.java
+import java.util.Arrays;
+
+// IDA*: поиск в глубину с растущим порогом f = g + h. Память не зависит от
+// размера достижимого пространства: стек глубиной не больше длины пути и
+// таблица транспозиций фиксированного размера (SearchOptions.memoryBudget).
+// Таблица хранит лучший известный g клетки и итерацию, в которой клетка с ним
+// раскрыта; вытеснение записи лишь приводит к повторному раскрытию, а не к ошибке.
+// Оптимальность гарантирована при допустимой эвристике.
+public class IdaStarSearch {
+
+    private static final int FOUND = -1;
+    private static final int STOPPED = -2;
+    private static final int NONE = Integer.MAX_VALUE;
+    // Ячейка таблицы: клетка, номер итерации, g - три int
+    private static final int ENTRY_BYTES = 12;
+
+    public static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return search(board, startX, startY, options, null);
+    }
+
+    // В stats попадают суммы по всем итерациям; открытый список здесь - стек пути,
+    // visited - клетки, принятые таблицей транспозиций
+    static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+        Heuristic heuristic = options.heuristic();
+        int startCell = board.cell(startX, startY);
+        if (board.isGoal(startCell)) {
+            return Solution.solved(board, new byte[0], startCell, startCell);
+        }
+        SearchBudget budget = SearchBudget.start(options);
+
+        // Таблица больше числа клеток не нужна - бюджет задаёт верхнюю границу
+        long entries = Math.min(options.memoryBudget() / ENTRY_BYTES, 2L * board.size());
+        TranspositionTable table = new TranspositionTable(entries);
+        // Кратчайший путь проходит каждую точку остановки не больше раза:
+        // порог выше их числа - решения нет. Граф остановок даёт более точную границу
+        int maxMoves = (options.stopGraph() ? board.stopGraph().nodeCount() : board.size()) + 1;
+
+        Stack stack = new Stack();
+        int bound = heuristic.estimate(board, startCell);
+        stack.bestCell = startCell;
+        stack.bestEstimate = bound;
+        Solution solution = null;
+        while (bound <= maxMoves) {
+            table.nextIteration();
+            int next = iterate(board, heuristic, table, stack, startCell, bound, budget);
+            if (next == FOUND) {
+                solution = Solution.solved(board, stack.moves(), startCell, stack.cell(stack.depth()));
+                break;
+            }
+            if (next == STOPPED) {
+                solution = Solution.stopped(board, stack.bestMoves, startCell, stack.bestCell, budget.outcome());
+                break;
+            }
+            if (next == NONE) {
+                break;
+            }
+            bound = next;
+        }
+        if (stats != null) {
+            stats.record(stack.expanded, stack.generated, table.rejected, stack.slideSteps,
+                         stack.peakDepth, table.accepted);
+        }
+        return solution != null ? solution : Solution.unsolved(board, startCell);
+    }
+
+    // Одна итерация поиска в глубину с порогом bound на явном стеке.
+    // Возвращает FOUND, STOPPED, минимальное f за порогом или NONE
+    private static int iterate(CompiledBoard board, Heuristic heuristic, TranspositionTable table,
+                               Stack stack, int startCell, int bound, SearchBudget budget) {
+        int nextBound = NONE;
+        stack.reset(startCell);
+        table.offer(startCell, 0);
+
+        while (stack.depth() >= 0) {
+            if (budget.spent(stack.expanded)) {
+                return STOPPED;
+            }
+            int depth = stack.depth();
+            int cell = stack.cell(depth);
+            int dir = stack.nextDirection(depth);
+            if (dir == 4) {
+                stack.pop();
+                continue;
+            }
+            stack.setNextDirection(depth, dir + 1);
+
+            int next = board.slide(cell, dir);
+            stack.slideSteps++;
+            if (next < 0) {
+                continue;
+            }
+            stack.generated++;
+            int g = depth + 1;
+            int f = g + heuristic.estimate(board, next);
+            if (f > bound) {
+                nextBound = Math.min(nextBound, f);
+                continue;
+            }
+            if (board.isGoal(next)) {
+                stack.push(next, dir);
+                return FOUND;
+            }
+            if (!table.offer(next, g)) {
+                continue;
+            }
+            stack.push(next, dir);
+            if (AStarSearch.isBetterPartial(f - g, g, stack.bestEstimate, stack.bestMoves.length)) {
+                stack.best(f - g);
+            }
+        }
+        return nextBound;
+    }
+
+    // Прямое отображение клетки в ячейку; при коллизии запись замещается
+    private static final class TranspositionTable {
+        private final int[] cells;
+        private final int[] iterations;
+        private final int[] costs;
+        private final int shift;
+        private int iteration;
+        long accepted;
+        long rejected;
+
+        TranspositionTable(long capacity) {
+            int size = Integer.highestOneBit((int) Math.max(1024, Math.min(capacity, 1 << 30)));
+            cells = new int[size];
+            iterations = new int[size];
+            costs = new int[size];
+            shift = 32 - Integer.numberOfTrailingZeros(size);
+        }
+
+        void nextIteration() {
+            iteration++;
+        }
+
+        // false - ветку можно отсечь: клетка уже раскрыта в этой итерации с тем же g,
+        // или ранее (в любой итерации) до неё нашёлся путь короче - тогда текущий
+        // префикс не оптимален и через него не пройдёт ни один кратчайший путь
+        boolean offer(int cell, int g) {
+            int slot = (cell * 0x9E3779B1) >>> shift;
+            if (cells[slot] == cell && iterations[slot] != 0) {
+                if (g > costs[slot] || (g == costs[slot] && iterations[slot] == iteration)) {
+                    rejected++;
+                    return false;
+                }
+            }
+            cells[slot] = cell;
+            iterations[slot] = iteration;
+            costs[slot] = g;
+            accepted++;
+            return true;
+        }
+    }
+
+    // Текущий путь: клетки, ход в каждую из них и следующее направление для перебора.
+    // Счётчики и лучшая клетка для частичного результата копятся за все итерации
+    private static final class Stack {
+        private int[] cells = new int[64];
+        private byte[] moves = new byte[64];
+        private byte[] nextDirections = new byte[64];
+        private int depth;
+        long expanded;
+        long generated;
+        long slideSteps;
+        long peakDepth;
+        // Клетка с наименьшей оценкой до цели (при равной - с длинным путём) и путь к ней
+        int bestCell;
+        int bestEstimate;
+        byte[] bestMoves = new byte[0];
+
+        void reset(int startCell) {
+            depth = 0;
+            cells[0] = startCell;
+            nextDirections[0] = 0;
+        }
+
+        int depth() {
+            return depth;
+        }
+
+        int cell(int index) {
+            return cells[index];
+        }
+
+        int nextDirection(int index) {
+            return nextDirections[index];
+        }
+
+        void setNextDirection(int index, int dir) {
+            nextDirections[index] = (byte) dir;
+        }
+
+        void push(int cell, int dir) {
+            depth++;
+            if (depth == cells.length) {
+                cells = Arrays.copyOf(cells, depth * 2);
+                moves = Arrays.copyOf(moves, depth * 2);
+                nextDirections = Arrays.copyOf(nextDirections, depth * 2);
+            }
+            cells[depth] = cell;
+            moves[depth] = (byte) dir;
+            nextDirections[depth] = 0;
+            expanded++;
+            peakDepth = Math.max(peakDepth, depth);
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        // Вершина стека - новая лучшая клетка. Оценка не растёт, а при равной оценке
+        // растёт длина пути, так что копий не больше h(старта) * maxMoves
+        void best(int estimate) {
+            bestEstimate = estimate;
+            bestCell = cells[depth];
+            bestMoves = moves();
+        }
+
+        byte[] moves() {
+            return Arrays.copyOfRange(moves, 1, depth + 1);
+        }
+    }
+}
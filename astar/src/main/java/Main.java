@@ -82,14 +82,15 @@ public class Main {
         
         printBoard(board, 0, 0);
         
-        List<String> solution = IcePuzzleSolver.solveIcePuzzle(board, 0, 0);
+        Solution solution = IcePuzzleSolver.solve(CompiledBoard.compile(board), 0, 0);
+        List<String> steps = solution.steps();
         
-        if (solution.isEmpty()) {
+        if (steps.isEmpty()) {
             System.out.println("❌ Решение не найдено!");
         } else {
-            System.out.println("✅ Решение найдено за " + solution.size() + " ходов:");
-            for (int i = 0; i < solution.size(); i++) {
-                System.out.println((i + 1) + ". " + solution.get(i));
+            System.out.println("✅ Решение найдено за " + steps.size() + " ходов:");
+            for (int i = 0; i < steps.size(); i++) {
+                System.out.println((i + 1) + ". " + steps.get(i));
             }
             
             // Визуализация решения
@@ -133,7 +134,7 @@ public class Main {
         System.out.println();
     }
     
-    static void visualizeSolution(char[][] initialBoard, List<String> solution) {
+    static void visualizeSolution(char[][] initialBoard, Solution solution) {
         char[][] board = copyBoard(initialBoard);
         int x = 0, y = 0;
         
@@ -151,16 +152,17 @@ public class Main {
         System.out.println("Шаг 0 - Начало:");
         printBoard(board, x, y);
         
-        for (int step = 0; step < solution.size(); step++) {
-            String move = solution.get(step);
-            String direction = move.split(" ")[0];
+        List<String> steps = solution.steps();
+        for (int step = 0; step < solution.moveCount(); step++) {
+            String move = steps.get(step);
+            int direction = solution.move(step);
             
             int dx = 0, dy = 0;
             switch (direction) {
-                case "UP": dx = -1; break;
-                case "DOWN": dx = 1; break;
-                case "LEFT": dy = -1; break;
-                case "RIGHT": dy = 1; break;
+                case CompiledBoard.UP: dx = -1; break;
+                case CompiledBoard.DOWN: dx = 1; break;
+                case CompiledBoard.LEFT: dy = -1; break;
+                case CompiledBoard.RIGHT: dy = 1; break;
             }
             
             int startX = x, startY = y;
@@ -0,0 +1,14 @@
+// OpenList.java
+
+// Открытый список A*: клетки с целочисленными g и f = g + h.
+// Извлечение возвращает f в старших 32 битах и клетку в младших.
+public interface OpenList {
+
+    void push(int node, int g, int f);
+
+    long pop();
+
+    boolean isEmpty();
+
+    int size();
+}
@@ -0,0 +1,21 @@
+// OpenListType.java
+
+// Реализация открытого списка для A*
+public enum OpenListType {
+
+    BINARY_HEAP {
+        @Override
+        public OpenList create() {
+            return new BinaryHeapOpenList();
+        }
+    },
+
+    BUCKET {
+        @Override
+        public OpenList create() {
+            return new BucketOpenList();
+        }
+    };
+
+    public abstract OpenList create();
+}
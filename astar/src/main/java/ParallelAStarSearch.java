@@ -0,0 +1,356 @@
+// ParallelAStarSearch.java
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Параллельный A* с распределением вершин по хэшу (HDA*). Каждая вершина
+// принадлежит ровно одному потоку: только он хранит её g и родителя и держит
+// её в своём открытом списке, поэтому таблица дубликатов безопасна без блокировок.
+// Сгенерированные чужие вершины пачками уходят владельцу через неблокирующие
+// очереди. Найденная цель - верхняя граница стоимости; поиск заканчивается,
+// когда не осталось ни сообщений, ни вершин с f меньше этой границы, - так что
+// при допустимой эвристике результат оптимален.
+// Бюджет поиска делится между потоками (SearchBudget.share); первый исчерпавший
+// свою долю останавливает всех.
+public class ParallelAStarSearch {
+
+    private static final int UNKNOWN = Integer.MAX_VALUE;
+    // Сообщение - тройка (вершина, g, родитель) в пачке int[]
+    private static final int BATCH = 3 * 256;
+
+    public static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options) {
+        return search(board, startX, startY, options, null);
+    }
+
+    // Счётчики в stats - суммы по потокам, peakOpen - сумма пиков их открытых списков
+    static Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+        SearchGraph graph = options.stopGraph() ? board.stopGraph() : board;
+        int startCell = board.cell(startX, startY);
+        if (board.isGoal(startCell)) {
+            return Solution.solved(board, new byte[0], startCell, startCell);
+        }
+
+        Shared shared = new Shared(board, graph, options, SearchBudget.start(options));
+        Worker[] workers = new Worker[shared.threads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(shared, i);
+        }
+        shared.workers = workers;
+
+        int start = graph.nodeOf(startCell);
+        if (start >= 0) {
+            workers[shared.owner(start)].seed(start, 0);
+        } else {
+            // Старт посреди льда: первым ходом попадаем в точки остановки
+            for (int dir = 0; dir < 4; dir++) {
+                int landing = board.slide(startCell, dir);
+                if (landing >= 0) {
+                    int node = graph.nodeOf(landing);
+                    workers[shared.owner(node)].seed(node, 1);
+                }
+            }
+        }
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(workers[i], "hda-worker-" + i);
+            threads[i].start();
+        }
+        // Прерванный вызывающий поток останавливает рабочие и всё равно дожидается их:
+        // частичный результат читает их g и родителей
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    shared.stop(SearchOutcome.CANCELLED);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (stats != null) {
+            long expanded = 0;
+            long generated = 0;
+            long duplicates = 0;
+            long slideSteps = 0;
+            long peakOpen = 0;
+            long visited = 0;
+            for (Worker worker : workers) {
+                expanded += worker.expanded;
+                generated += worker.generated;
+                duplicates += worker.duplicates;
+                slideSteps += worker.slideSteps;
+                peakOpen += worker.peakOpen;
+                visited += worker.visited;
+            }
+            stats.record(expanded, generated, duplicates, slideSteps, peakOpen, visited);
+        }
+        long best = shared.best.get();
+        if (shared.stopped != null) {
+            return stoppedSolution(shared, best, startCell, start < 0);
+        }
+        if (best == Long.MAX_VALUE) {
+            return Solution.unsolved(board, startCell);
+        }
+        return AStarSearch.reconstructSolution(board, graph, shared.parent, (int) best, startCell, start < 0);
+    }
+
+    // Частичный результат: уже найденная, но не доказанная оптимальной цель,
+    // иначе лучшая по эвристике вершина, раскрытая каким-либо потоком
+    private static Solution stoppedSolution(Shared shared, long goal, int startCell, boolean startOutside) {
+        int best = -1;
+        if (goal != Long.MAX_VALUE) {
+            best = (int) goal;
+        } else {
+            int bestEstimate = Integer.MAX_VALUE;
+            int bestG = -1;
+            for (Worker worker : shared.workers) {
+                if (worker.best >= 0
+                        && AStarSearch.isBetterPartial(worker.bestEstimate, worker.bestG, bestEstimate, bestG)) {
+                    bestEstimate = worker.bestEstimate;
+                    bestG = worker.bestG;
+                    best = worker.best;
+                }
+            }
+        }
+        return AStarSearch.stoppedSolution(shared.board, shared.graph, shared.parent, best,
+                                           startCell, startOutside, shared.stopped);
+    }
+
+    // Общее состояние: g и родители пишет только владелец вершины,
+    // читаются они после завершения всех потоков
+    private static final class Shared {
+        final CompiledBoard board;
+        final SearchGraph graph;
+        final Heuristic heuristic;
+        final OpenListType openList;
+        final int threads;
+        final int[] g;
+        final int[] parent;
+        // Сообщения в пути плюс вершины в открытых списках; 0 - работы больше нет
+        final AtomicLong pending = new AtomicLong();
+        // Лучшая найденная цель: стоимость в старших 32 битах, вершина - в младших
+        final AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+        final SearchBudget budget;
+        // Причина остановки, null - поиск идёт
+        volatile SearchOutcome stopped;
+        Worker[] workers;
+
+        Shared(CompiledBoard board, SearchGraph graph, SearchOptions options, SearchBudget budget) {
+            this.board = board;
+            this.graph = graph;
+            this.heuristic = options.heuristic();
+            this.openList = options.openList();
+            this.threads = Math.max(1, options.threads());
+            this.g = new int[graph.nodeCount()];
+            this.parent = new int[graph.nodeCount()];
+            this.budget = budget;
+            Arrays.fill(g, UNKNOWN);
+        }
+
+        void stop(SearchOutcome outcome) {
+            if (stopped == null) {
+                stopped = outcome;
+            }
+        }
+
+        int owner(int node) {
+            return ((node * 0x9E3779B1) >>> 1) % threads;
+        }
+
+        int bestCost() {
+            long value = best.get();
+            return value == Long.MAX_VALUE ? UNKNOWN : (int) (value >>> 32);
+        }
+
+        void offerGoal(int node, int cost) {
+            long candidate = ((long) cost << 32) | node;
+            long current;
+            do {
+                current = best.get();
+                if (current <= candidate) {
+                    return;
+                }
+            } while (!best.compareAndSet(current, candidate));
+        }
+
+        int estimate(int node) {
+            return heuristic.estimate(board, graph.cellOf(node));
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final Shared shared;
+        private final int id;
+        private final OpenList open;
+        private final ConcurrentLinkedQueue<int[]> inbox = new ConcurrentLinkedQueue<>();
+        private final int[][] outgoing;
+        private final int[] outgoingSize;
+        private final SearchBudget budget;
+        // Лучшая раскрытая вершина потока для частичного результата
+        int best = -1;
+        int bestEstimate = Integer.MAX_VALUE;
+        int bestG = -1;
+        // Счётчики пишет только свой поток, читаются они после join
+        long expanded;
+        long generated;
+        long duplicates;
+        long slideSteps;
+        long peakOpen;
+        long visited;
+
+        Worker(Shared shared, int id) {
+            this.shared = shared;
+            this.id = id;
+            this.open = shared.openList.create();
+            this.outgoing = new int[shared.threads][BATCH];
+            this.outgoingSize = new int[shared.threads];
+            this.budget = shared.budget.share(shared.threads);
+        }
+
+        void seed(int node, int g) {
+            shared.pending.incrementAndGet();
+            if (!accept(node, g, -1)) {
+                shared.pending.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            AtomicLong pending = shared.pending;
+            budget.startMetering();
+            while (pending.get() != 0 && shared.stopped == null) {
+                if (budget.spent(expanded)) {
+                    shared.stop(budget.outcome());
+                    break;
+                }
+                boolean worked = drainInbox();
+                if (!open.isEmpty()) {
+                    expandNext();
+                    worked = true;
+                }
+                flush();
+                if (!worked) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        private boolean drainInbox() {
+            boolean any = false;
+            int[] batch;
+            while ((batch = inbox.poll()) != null) {
+                int rejected = 0;
+                int length = batch[batch.length - 1];
+                for (int i = 0; i < length; i += 3) {
+                    if (!accept(batch[i], batch[i + 1], batch[i + 2])) {
+                        rejected++;
+                    }
+                }
+                if (rejected > 0) {
+                    shared.pending.addAndGet(-rejected);
+                }
+                any = true;
+            }
+            return any;
+        }
+
+        // Своя вершина с новым g: true, если она осталась в открытом списке
+        // (и продолжает числиться в pending)
+        private boolean accept(int node, int g, int from) {
+            if (g >= shared.g[node]) {
+                duplicates++;
+                return false;
+            }
+            visited += shared.g[node] == UNKNOWN ? 1 : 0;
+            shared.g[node] = g;
+            shared.parent[node] = from;
+            if (shared.graph.isGoal(node)) {
+                shared.offerGoal(node, g);
+                return false;
+            }
+            int f = g + shared.estimate(node);
+            if (f >= shared.bestCost()) {
+                return false;
+            }
+            open.push(node, g, f);
+            peakOpen = Math.max(peakOpen, open.size());
+            return true;
+        }
+
+        private void expandNext() {
+            long top = open.pop();
+            int current = (int) top;
+            int f = (int) (top >>> 32);
+            int g = shared.g[current];
+
+            // Устаревшая запись или ветка не лучше уже найденной цели
+            if (f != g + shared.estimate(current) || f >= shared.bestCost()) {
+                shared.pending.decrementAndGet();
+                return;
+            }
+
+            SearchGraph graph = shared.graph;
+            int queued = 0;
+            expanded++;
+            if (AStarSearch.isBetterPartial(f - g, g, bestEstimate, bestG)) {
+                bestEstimate = f - g;
+                bestG = g;
+                best = current;
+            }
+            for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+                int next = graph.edgeTarget(edge);
+                slideSteps++;
+                if (next < 0) {
+                    continue;
+                }
+                generated++;
+                int owner = shared.owner(next);
+                if (owner == id) {
+                    if (accept(next, g + 1, current)) {
+                        queued++;
+                    }
+                } else {
+                    send(owner, next, g + 1, current);
+                    queued++;
+                }
+            }
+            // Сначала учитываем порождённую работу, потом снимаем раскрытую вершину
+            shared.pending.addAndGet(queued - 1);
+        }
+
+        private void send(int owner, int node, int g, int from) {
+            int[] buffer = outgoing[owner];
+            int size = outgoingSize[owner];
+            buffer[size] = node;
+            buffer[size + 1] = g;
+            buffer[size + 2] = from;
+            outgoingSize[owner] = size + 3;
+            if (size + 3 == BATCH) {
+                flush(owner);
+            }
+        }
+
+        private void flush() {
+            for (int owner = 0; owner < outgoing.length; owner++) {
+                if (outgoingSize[owner] > 0) {
+                    flush(owner);
+                }
+            }
+        }
+
+        // Пачка уходит копией с длиной в последнем элементе
+        private void flush(int owner) {
+            int size = outgoingSize[owner];
+            int[] batch = Arrays.copyOf(outgoing[owner], size + 1);
+            batch[size] = size;
+            outgoingSize[owner] = 0;
+            shared.workers[owner].inbox.add(batch);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+// SearchBudget.java
+
+// Лимиты одного поиска из SearchOptions: время, раскрытые вершины, выделенная
+// память, плюс отмена токеном и прерыванием вызывающего потока.
+// Поиск вызывает spent(expanded) на каждое раскрытие. Число раскрытий сравнивается
+// каждый раз, остальное - раз в CHECK_INTERVAL раскрытий: часы, счётчик выделений
+// потока и флаги отмены слишком дороги для каждой вершины. Поэтому время и память
+// могут быть превышены на работу CHECK_INTERVAL раскрытий.
+// Память - байты, выделенные потоком поиска с его начала, а не занятые в куче.
+// Бюджет принадлежит одному потоку; рабочие потоки PARALLEL получают свою долю
+// через share. DISTANCE_FIELD бюджет не проверяет: поле строится за линейное время
+// один раз на доску, а ответ по нему - O(длины пути)
+final class SearchBudget {
+
+    static final int CHECK_INTERVAL = 1024;
+
+    private final long deadline;
+    private final long nodeLimit;
+    private final long memoryLimit;
+    private final CancellationToken cancellation;
+    private final Thread caller;
+    private long allocatedBefore;
+    private long nextCheck;
+    private SearchOutcome outcome;
+
+    private SearchBudget(long deadline, long nodeLimit, long memoryLimit, CancellationToken cancellation, Thread caller) {
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+        this.memoryLimit = memoryLimit;
+        this.cancellation = cancellation;
+        this.caller = caller;
+        this.nextCheck = Math.min(0, nodeLimit);
+    }
+
+    // Бюджет поиска в текущем потоке; время отсчитывается с этого вызова
+    static SearchBudget start(SearchOptions options) {
+        long deadline = options.timeLimitNanos() == Long.MAX_VALUE
+                        ? Long.MAX_VALUE : System.nanoTime() + options.timeLimitNanos();
+        SearchBudget budget = new SearchBudget(deadline, options.nodeLimit(), options.memoryLimit(),
+                                               options.cancellation(), Thread.currentThread());
+        budget.startMetering();
+        return budget;
+    }
+
+    // Доля одного из parts рабочих потоков: тот же срок и та же отмена,
+    // лимиты вершин и памяти делятся поровну. Счёт памяти начинается в startMetering
+    SearchBudget share(int parts) {
+        return new SearchBudget(deadline, divide(nodeLimit, parts), divide(memoryLimit, parts), cancellation, caller);
+    }
+
+    // Начать счёт выделенной памяти в текущем потоке
+    void startMetering() {
+        allocatedBefore = memoryLimit == Long.MAX_VALUE ? 0 : SearchStats.threadAllocatedBytes();
+    }
+
+    // true - поиск пора останавливать, причина - в outcome()
+    boolean spent(long expanded) {
+        return expanded >= nextCheck && check(expanded);
+    }
+
+    // Причина остановки или null, если бюджет не исчерпан
+    SearchOutcome outcome() {
+        return outcome;
+    }
+
+    private boolean check(long expanded) {
+        if ((cancellation != null && cancellation.isCancelled()) || caller.isInterrupted()) {
+            outcome = SearchOutcome.CANCELLED;
+        } else if (expanded >= nodeLimit || pastDeadline() || overMemory()) {
+            outcome = SearchOutcome.BUDGET_EXCEEDED;
+        }
+        nextCheck = Math.min(expanded + CHECK_INTERVAL, nodeLimit);
+        return outcome != null;
+    }
+
+    private boolean pastDeadline() {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+    }
+
+    private boolean overMemory() {
+        return memoryLimit != Long.MAX_VALUE && SearchStats.threadAllocatedBytes() - allocatedBefore > memoryLimit;
+    }
+
+    private static long divide(long limit, int parts) {
+        return limit == Long.MAX_VALUE ? limit : Math.max(1, limit / parts);
+    }
+}
@@ -0,0 +1,44 @@
+// SearchEvent.java
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR на каждый IcePuzzleSolver.solve. Пока запись события не включена,
+// solve его не заполняет и счётчики не собирает:
+//   java -XX:StartFlightRecording:filename=solve.jfr,settings=profile ...
+//   jfr print --events ice.astar.Search solve.jfr
+@Name("ice.astar.Search")
+@Label("Ice Puzzle Search")
+@Category({"Ice Puzzle", "astar"})
+@StackTrace(false)
+class SearchEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Board Cells")
+    int cells;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Moves")
+    int moves;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Peak Open")
+    long peakOpen;
+
+    @Label("Allocated Bytes")
+    long allocatedBytes;
+}
@@ -0,0 +1,30 @@
+// SearchGraph.java
+
+// Граф ходов, по которому идут A* и двунаправленный поиск.
+// Вершины пронумерованы от 0 до nodeCount() - 1, у каждой есть клетка доски.
+// Рёбра вершины - edgeTarget(e) для e в [edgeStart, edgeEnd); -1 означает «хода нет».
+public interface SearchGraph {
+
+    int nodeCount();
+
+    // Вершина для клетки или -1, если на этой клетке остановиться нельзя
+    int nodeOf(int cell);
+
+    int cellOf(int node);
+
+    boolean isGoal(int node);
+
+    int[] goalNodes();
+
+    int edgeStart(int node);
+
+    int edgeEnd(int node);
+
+    int edgeTarget(int edge);
+
+    int predecessorStart(int node);
+
+    int predecessorEnd(int node);
+
+    int predecessor(int index);
+}
@@ -0,0 +1,51 @@
+// SearchMode.java
+
+// Алгоритм поиска для solveIcePuzzle
+public enum SearchMode {
+
+    // A* от старта с эвристикой и открытым списком из SearchOptions
+    ASTAR {
+        @Override
+        Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+            return AStarSearch.search(board, startX, startY, options, stats);
+        }
+    },
+
+    // Встречный поиск в ширину от старта и от всех целей
+    BIDIRECTIONAL {
+        @Override
+        Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+            return BidirectionalSearch.search(board, startX, startY, options, stats);
+        }
+    },
+
+    // IDA* в ограниченной памяти: стек пути и таблица транспозиций размером
+    // SearchOptions.memoryBudget
+    IDA_STAR {
+        @Override
+        Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+            return IdaStarSearch.search(board, startX, startY, options, stats);
+        }
+    },
+
+    // A* с распределением вершин по потокам (SearchOptions.threads):
+    // каждый поток хранит свои вершины и обменивается с остальными пачками сообщений
+    PARALLEL {
+        @Override
+        Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+            return ParallelAStarSearch.search(board, startX, startY, options, stats);
+        }
+    },
+
+    // Спуск по кэшированному полю расстояний доски: первый запрос строит поле,
+    // остальные отвечают за O(длины пути)
+    DISTANCE_FIELD {
+        @Override
+        Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats) {
+            return board.distanceField().solveFrom(startX, startY);
+        }
+    };
+
+    // stats - приёмник счётчиков поиска или null, если они никому не нужны
+    abstract Solution search(CompiledBoard board, int startX, int startY, SearchOptions options, SearchStats stats);
+}
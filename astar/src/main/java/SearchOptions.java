@@ -0,0 +1,133 @@
+// SearchOptions.java
+import java.time.Duration;
+
+// Настройки поиска для solveIcePuzzle. По умолчанию - A* с допустимой эвристикой
+// SLIDE_BOUND и очередью по корзинам
+public class SearchOptions {
+
+    private SearchMode mode = SearchMode.ASTAR;
+    private Heuristic heuristic = Heuristics.SLIDE_BOUND;
+    private OpenListType openList = OpenListType.BUCKET;
+    private boolean stopGraph;
+    private long memoryBudget = 16L << 20;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean stats;
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long memoryLimit = Long.MAX_VALUE;
+    private CancellationToken cancellation;
+
+    public static SearchOptions defaults() {
+        return new SearchOptions();
+    }
+
+    public SearchMode mode() {
+        return mode;
+    }
+
+    public SearchOptions mode(SearchMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public Heuristic heuristic() {
+        return heuristic;
+    }
+
+    public SearchOptions heuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+        return this;
+    }
+
+    public OpenListType openList() {
+        return openList;
+    }
+
+    public SearchOptions openList(OpenListType openList) {
+        this.openList = openList;
+        return this;
+    }
+
+    public boolean stopGraph() {
+        return stopGraph;
+    }
+
+    // Искать по сжатому графу точек остановки доски вместо всех клеток
+    public SearchOptions stopGraph(boolean stopGraph) {
+        this.stopGraph = stopGraph;
+        return this;
+    }
+
+    public long memoryBudget() {
+        return memoryBudget;
+    }
+
+    // Память в байтах под таблицу транспозиций режима IDA_STAR
+    public SearchOptions memoryBudget(long bytes) {
+        this.memoryBudget = bytes;
+        return this;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    // Число потоков режима PARALLEL, по умолчанию - по числу ядер
+    public SearchOptions threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public boolean stats() {
+        return stats;
+    }
+
+    // Приложить к Solution счётчики поиска (Solution.stats()). Без этого
+    // они собираются только под записью JFR события SearchEvent
+    public SearchOptions stats(boolean stats) {
+        this.stats = stats;
+        return this;
+    }
+
+    // Лимиты поиска, по умолчанию их нет. Исчерпанный лимит останавливает поиск
+    // с исходом BUDGET_EXCEEDED и лучшим частичным путём (см. SearchBudget)
+    public long timeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    public SearchOptions timeLimit(Duration limit) {
+        this.timeLimitNanos = limit.toNanos();
+        return this;
+    }
+
+    public long nodeLimit() {
+        return nodeLimit;
+    }
+
+    // Наибольшее число раскрытых вершин
+    public SearchOptions nodeLimit(long nodes) {
+        this.nodeLimit = nodes;
+        return this;
+    }
+
+    public long memoryLimit() {
+        return memoryLimit;
+    }
+
+    // Наибольший объём памяти в байтах, выделенной потоками поиска.
+    // Не путать с memoryBudget - размером таблицы IDA_STAR
+    public SearchOptions memoryLimit(long bytes) {
+        this.memoryLimit = bytes;
+        return this;
+    }
+
+    public CancellationToken cancellation() {
+        return cancellation;
+    }
+
+    // Токен отмены; прерывание вызывающего потока отменяет поиск и без него
+    public SearchOptions cancellation(CancellationToken token) {
+        this.cancellation = token;
+        return this;
+    }
+}
@@ -0,0 +1,18 @@
+// SearchOutcome.java
+
+// Чем закончился поиск: Solution.outcome()
+public enum SearchOutcome {
+
+    // Найден оптимальный путь до цели
+    SOLVED,
+
+    // Пространство исчерпано - цель недостижима
+    NO_SOLUTION,
+
+    // Сработал лимит времени, раскрытых вершин или памяти из SearchOptions;
+    // в Solution - путь к самой близкой к цели вершине из найденных
+    BUDGET_EXCEEDED,
+
+    // Отменён через CancellationToken или прерыванием потока; частичный путь - как у BUDGET_EXCEEDED
+    CANCELLED
+}
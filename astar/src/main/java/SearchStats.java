@@ -0,0 +1,102 @@
+// SearchStats.java
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Счётчики одного поиска: прикладываются к Solution, если включены
+// SearchOptions.stats(true) или запись JFR события SearchEvent.
+// Без них поиск считает только в локальных переменных и ничего не выделяет.
+// Узлы - вершины графа поиска (клетки или точки остановки):
+//   expanded   - раскрыто вершин
+//   generated  - порождено соседей (ходов, которые сдвигают игрока)
+//   duplicates - порождённые соседи, уже известные не дороже
+//   slideSteps - обращений к таблице скольжений (один ход - одно обращение)
+//   peakOpen   - наибольший размер открытого списка или фронта
+//   visited    - вершин с известным g
+// Режим DISTANCE_FIELD отвечает по готовому полю - у него только время и память.
+// Выделенная память - по текущему потоку; у PARALLEL без рабочих потоков
+public final class SearchStats {
+
+    private final SearchMode mode;
+    long expanded;
+    long generated;
+    long duplicates;
+    long slideSteps;
+    long peakOpen;
+    long visited;
+    long compileNanos;
+    long searchNanos;
+    long allocatedBytes;
+
+    SearchStats(SearchMode mode) {
+        this.mode = mode;
+    }
+
+    public SearchMode mode() {
+        return mode;
+    }
+
+    public long expanded() {
+        return expanded;
+    }
+
+    public long generated() {
+        return generated;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    public long slideSteps() {
+        return slideSteps;
+    }
+
+    public long peakOpen() {
+        return peakOpen;
+    }
+
+    public long visited() {
+        return visited;
+    }
+
+    // Время CompiledBoard.compile, если поиск шёл от char[][], иначе 0
+    public long compileNanos() {
+        return compileNanos;
+    }
+
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    void record(long expanded, long generated, long duplicates, long slideSteps, long peakOpen, long visited) {
+        this.expanded = expanded;
+        this.generated = generated;
+        this.duplicates = duplicates;
+        this.slideSteps = slideSteps;
+        this.peakOpen = peakOpen;
+        this.visited = visited;
+    }
+
+    // Байт, выделенных текущим потоком с его старта, или 0, если JVM этого не умеет
+    static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT,
+                "%s: expanded %d, generated %d, duplicates %d, slides %d, peak open %d, visited %d, " +
+                "compile %.3f ms, search %.3f ms, allocated %d B",
+                mode, expanded, generated, duplicates, slideSteps, peakOpen, visited,
+                compileNanos / 1e6, searchNanos / 1e6, allocatedBytes);
+    }
+}
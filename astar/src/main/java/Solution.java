@@ -0,0 +1,136 @@
+// Solution.java
+import java.util.AbstractList;
+import java.util.List;
+
+// Компактный результат поиска: коды направлений (CompiledBoard.UP..RIGHT),
+// стартовая и конечная клетки. Строки вида "RIGHT to (0,2)" собираются только
+// по запросу через steps(), поэтому вызывающим, которым нужны лишь ходы,
+// не приходится платить за форматирование.
+// Поиск, остановленный бюджетом или отменой, тоже возвращает Solution:
+// outcome() говорит почему, а ходы ведут к самой близкой к цели клетке из найденных
+public final class Solution {
+
+    private static final String[] DIRECTION_NAMES = {"UP", "DOWN", "LEFT", "RIGHT"};
+    private static final byte[] NO_MOVES = new byte[0];
+
+    private final CompiledBoard board;
+    private final byte[] moves;
+    private final int startCell;
+    private final int endCell;
+    private final SearchOutcome outcome;
+    private final SearchStats stats;
+
+    private Solution(CompiledBoard board, byte[] moves, int startCell, int endCell,
+                     SearchOutcome outcome, SearchStats stats) {
+        this.board = board;
+        this.moves = moves;
+        this.startCell = startCell;
+        this.endCell = endCell;
+        this.outcome = outcome;
+        this.stats = stats;
+    }
+
+    static Solution solved(CompiledBoard board, byte[] moves, int startCell, int endCell) {
+        return new Solution(board, moves, startCell, endCell, SearchOutcome.SOLVED, null);
+    }
+
+    static Solution unsolved(CompiledBoard board, int startCell) {
+        return new Solution(board, NO_MOVES, startCell, -1, SearchOutcome.NO_SOLUTION, null);
+    }
+
+    // Остановленный поиск: outcome - BUDGET_EXCEEDED или CANCELLED,
+    // moves - путь от старта до endCell, лучшей из найденных клеток
+    static Solution stopped(CompiledBoard board, byte[] moves, int startCell, int endCell, SearchOutcome outcome) {
+        return new Solution(board, moves, startCell, endCell, outcome, null);
+    }
+
+    // Тот же результат со счётчиками поиска
+    Solution withStats(SearchStats stats) {
+        return new Solution(board, moves, startCell, endCell, outcome, stats);
+    }
+
+    public boolean isSolved() {
+        return outcome == SearchOutcome.SOLVED;
+    }
+
+    public SearchOutcome outcome() {
+        return outcome;
+    }
+
+    // Поиск остановлен бюджетом или отменой - ходы ведут не к цели
+    public boolean isPartial() {
+        return outcome == SearchOutcome.BUDGET_EXCEEDED || outcome == SearchOutcome.CANCELLED;
+    }
+
+    public int moveCount() {
+        return moves.length;
+    }
+
+    public int move(int index) {
+        return moves[index];
+    }
+
+    // Коды направлений; массив общий, не изменять
+    public byte[] moves() {
+        return moves;
+    }
+
+    public int startCell() {
+        return startCell;
+    }
+
+    // Клетка цели; у частичного результата - клетка, где кончается путь; -1, если решения нет
+    public int endCell() {
+        return endCell;
+    }
+
+    // Счётчики поиска или null, если они не запрашивались в SearchOptions.stats
+    public SearchStats stats() {
+        return stats;
+    }
+
+    public static String directionName(int direction) {
+        return DIRECTION_NAMES[direction];
+    }
+
+    // Направление хода между двумя клетками одной строки или столбца
+    static byte direction(int from, int to, int cols) {
+        if (to / cols != from / cols) {
+            return (byte) (to < from ? CompiledBoard.UP : CompiledBoard.DOWN);
+        }
+        return (byte) (to < from ? CompiledBoard.LEFT : CompiledBoard.RIGHT);
+    }
+
+    // Ходы в прежнем текстовом виде "DIRECTION to (x,y)". Список ленивый:
+    // позиции восстанавливаются по таблице скольжений при первом обращении,
+    // строка собирается на каждый get
+    public List<String> steps() {
+        return new AbstractList<String>() {
+            private int[] positions;
+
+            @Override
+            public String get(int index) {
+                if (positions == null) {
+                    positions = replay();
+                }
+                int cell = positions[index];
+                return directionName(moves[index]) + " to (" + cell / board.cols() + "," + cell % board.cols() + ")";
+            }
+
+            @Override
+            public int size() {
+                return moves.length;
+            }
+        };
+    }
+
+    private int[] replay() {
+        int[] positions = new int[moves.length];
+        int cell = startCell;
+        for (int i = 0; i < moves.length; i++) {
+            cell = board.slide(cell, moves[i]);
+            positions[i] = cell;
+        }
+        return positions;
+    }
+}
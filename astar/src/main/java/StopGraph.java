@@ -0,0 +1,156 @@
+// StopGraph.java
+import java.util.Arrays;
+
+// Сжатый граф точек остановки. Игрок может остановиться только там, где
+// заканчивается скольжение (перед стеной или краем) и на целях, поэтому
+// остальные клетки в граф не входят. Рёбра и обратные рёбра хранятся в CSR:
+// массивы смещений и целей. Граф неизменяем и безопасно разделяется между потоками.
+public class StopGraph implements SearchGraph {
+
+    // Клетки вершин по возрастанию - номер вершины ищется двоичным поиском
+    private final int[] nodeCells;
+    private final boolean[] goal;
+    private final int[] goalNodes;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+
+    private StopGraph(int[] nodeCells, boolean[] goal, int[] goalNodes, int[] edgeOffsets, int[] edgeTargets,
+                      int[] predecessorOffsets, int[] predecessors) {
+        this.nodeCells = nodeCells;
+        this.goal = goal;
+        this.goalNodes = goalNodes;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessors = predecessors;
+    }
+
+    static StopGraph build(CompiledBoard board) {
+        int size = board.size();
+        boolean[] stop = new boolean[size];
+        int nodeCount = 0;
+        for (int cell = 0; cell < size; cell++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int target = board.slide(cell, dir);
+                if (target >= 0 && !stop[target]) {
+                    stop[target] = true;
+                }
+            }
+        }
+        for (int goalCell : board.goals()) {
+            stop[goalCell] = true;
+        }
+        for (boolean isStop : stop) {
+            if (isStop) {
+                nodeCount++;
+            }
+        }
+
+        int[] nodeCells = new int[nodeCount];
+        boolean[] goal = new boolean[nodeCount];
+        int[] goalNodes = new int[board.goals().length];
+        for (int cell = 0, node = 0, goalIndex = 0; cell < size; cell++) {
+            if (stop[cell]) {
+                nodeCells[node] = cell;
+                if (board.isGoal(cell)) {
+                    goal[node] = true;
+                    goalNodes[goalIndex++] = node;
+                }
+                node++;
+            }
+        }
+
+        // Прямые рёбра: не больше 4 на вершину, без пустых направлений
+        int[] edgeOffsets = new int[nodeCount + 1];
+        int[] edgeTargets = new int[nodeCount * 4];
+        int edges = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edgeOffsets[node] = edges;
+            for (int dir = 0; dir < 4; dir++) {
+                int target = board.slide(nodeCells[node], dir);
+                if (target >= 0) {
+                    edgeTargets[edges++] = Arrays.binarySearch(nodeCells, target);
+                }
+            }
+        }
+        edgeOffsets[nodeCount] = edges;
+        edgeTargets = Arrays.copyOf(edgeTargets, edges);
+
+        // Обратные рёбра - подсчёт, префиксные суммы, раскладка
+        int[] predecessorOffsets = new int[nodeCount + 1];
+        for (int target : edgeTargets) {
+            predecessorOffsets[target + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            predecessorOffsets[node + 1] += predecessorOffsets[node];
+        }
+        int[] fill = Arrays.copyOf(predecessorOffsets, nodeCount);
+        int[] predecessors = new int[edges];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int e = edgeOffsets[node]; e < edgeOffsets[node + 1]; e++) {
+                predecessors[fill[edgeTargets[e]]++] = node;
+            }
+        }
+
+        return new StopGraph(nodeCells, goal, goalNodes, edgeOffsets, edgeTargets,
+                             predecessorOffsets, predecessors);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCells.length;
+    }
+
+    @Override
+    public int nodeOf(int cell) {
+        int node = Arrays.binarySearch(nodeCells, cell);
+        return node >= 0 ? node : -1;
+    }
+
+    @Override
+    public int cellOf(int node) {
+        return nodeCells[node];
+    }
+
+    @Override
+    public boolean isGoal(int node) {
+        return goal[node];
+    }
+
+    @Override
+    public int[] goalNodes() {
+        return goalNodes;
+    }
+
+    @Override
+    public int edgeStart(int node) {
+        return edgeOffsets[node];
+    }
+
+    @Override
+    public int edgeEnd(int node) {
+        return edgeOffsets[node + 1];
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    @Override
+    public int predecessorStart(int node) {
+        return predecessorOffsets[node];
+    }
+
+    @Override
+    public int predecessorEnd(int node) {
+        return predecessorOffsets[node + 1];
+    }
+
+    @Override
+    public int predecessor(int index) {
+        return predecessors[index];
+    }
+}
@@ -4,7 +4,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Timeout;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 class IcePuzzleSolverTest {
@@ -215,4 +217,427 @@ class IcePuzzleSolverTest {
         // Должен быть прямой путь
         assertTrue(solution.size() <= 3, "Решение должно быть оптимальным");
     }
+
+    @Test
+    @DisplayName("Тест 13: Упакованный поиск согласован с поиском по State")
+    void testPackedSearchMatchesStateSearch() {
+        String[][] boards = {
+            {"P.G", "...", "..."},
+            {"P.XG", "...X", ".X..", "...."},
+            {"P..X.XG", "XX.X.X.", "...X.X.", ".XXX.X.", "....X..", ".XXXXX.", "......G"},
+            {"P.X.G", "...X.", ".G..."},
+            {"P...", "....", "...G"}
+        };
+        
+        for (String[] rows : boards) {
+            char[][] board = IcePuzzleSolver.createBoard(rows);
+            int[] start = IcePuzzleSolver.findStartPosition(board);
+            
+            List<String> packed = IcePuzzleSolver.solveIcePuzzle(board, start[0], start[1]);
+            List<String> states = IcePuzzleSolver.solveWithStates(board, start[0], start[1]);
+            
+            assertEquals(states.isEmpty(), packed.isEmpty(), "Разрешимость должна совпадать");
+            if (!packed.isEmpty()) {
+                assertTrue(packed.size() <= states.size(), "Путь не должен стать длиннее");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 14: Таблица скольжений совпадает с пошаговой симуляцией")
+    void testJumpTableMatchesSimulation() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "...G..."
+        };
+        char[][] board = IcePuzzleSolver.createBoard(rows);
+        CompiledBoard compiled = CompiledBoard.compile(board);
+        int[] dx = {-1, 1, 0, 0};
+        int[] dy = {0, 0, -1, 1};
+        
+        for (int x = 0; x < board.length; x++) {
+            for (int y = 0; y < board[0].length; y++) {
+                if (board[x][y] == 'X') {
+                    continue;
+                }
+                IcePuzzleSolver.State state = new IcePuzzleSolver.State(x, y, board, 0, null, "Start");
+                for (int dir = 0; dir < 4; dir++) {
+                    IcePuzzleSolver.State expected = IcePuzzleSolver.simulateSlide(state, dx[dir], dy[dir], "MOVE");
+                    int actual = compiled.slide(compiled.cell(x, y), dir);
+                    
+                    if (expected == null) {
+                        assertEquals(-1, actual, "Скольжение невозможно из (" + x + "," + y + ")");
+                    } else {
+                        assertEquals(compiled.cell(expected.playerX, expected.playerY), actual,
+                                     "Неверная клетка остановки из (" + x + "," + y + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 15: Допустимая эвристика даёт оптимальное число ходов")
+    void testAdmissibleHeuristicIsOptimal() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        
+        List<String> bfs = IcePuzzleSolver.solveIcePuzzle(board, 0, 0,
+                SearchOptions.defaults().heuristic(Heuristics.ZERO));
+        List<String> bound = IcePuzzleSolver.solveIcePuzzle(board, 0, 0,
+                SearchOptions.defaults().heuristic(Heuristics.SLIDE_BOUND));
+        
+        assertTrue(Heuristics.SLIDE_BOUND.isAdmissible());
+        assertFalse(Heuristics.MANHATTAN.isAdmissible());
+        assertFalse(bfs.isEmpty(), "Решение должно быть найдено");
+        assertEquals(bfs.size(), bound.size(), "Длина решения должна быть оптимальной");
+        assertEquals(0, Heuristics.SLIDE_BOUND.estimate(board, board.cell(0, 6)));
+        assertEquals(1, Heuristics.SLIDE_BOUND.estimate(board, board.cell(0, 0)));
+        assertEquals(2, Heuristics.SLIDE_BOUND.estimate(board, board.cell(2, 2)));
+    }
+
+    @Test
+    @DisplayName("Тест 16: Очередь по корзинам - минимальное f, при равенстве большее g")
+    void testBucketOpenListOrdering() {
+        OpenList open = new BucketOpenList();
+        open.push(1, 0, 5);
+        open.push(2, 3, 4);
+        open.push(3, 1, 4);
+        open.push(4, 4, 4);
+        
+        assertEquals(4, (int) open.pop(), "При равном f первой выходит клетка с большим g");
+        assertEquals(2, (int) open.pop());
+        // Вставка ниже уже пройденных h в той же строке f выходит первой
+        open.push(5, 4, 4);
+        assertEquals(5, (int) open.pop());
+        assertEquals(3, (int) open.pop());
+        long last = open.pop();
+        assertEquals(1, (int) last);
+        assertEquals(5, (int) (last >>> 32), "f возвращается в старших битах");
+        assertTrue(open.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Тест 17: Обе реализации открытого списка дают одинаковую длину решения")
+    void testOpenListsAgree() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        
+        List<String> heap = IcePuzzleSolver.solveIcePuzzle(board, 0, 0,
+                SearchOptions.defaults().openList(OpenListType.BINARY_HEAP));
+        List<String> buckets = IcePuzzleSolver.solveIcePuzzle(board, 0, 0,
+                SearchOptions.defaults().openList(OpenListType.BUCKET));
+        
+        assertEquals(heap.size(), buckets.size());
+    }
+
+    @Test
+    @DisplayName("Тест 18: Двунаправленный поиск находит оптимальный путь")
+    void testBidirectionalSearch() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        SearchOptions bidirectional = SearchOptions.defaults().mode(SearchMode.BIDIRECTIONAL);
+        
+        List<String> expected = IcePuzzleSolver.solveIcePuzzle(board, 0, 0);
+        List<String> actual = IcePuzzleSolver.solveIcePuzzle(board, 0, 0, bidirectional);
+        
+        assertFalse(actual.isEmpty(), "Решение должно быть найдено");
+        assertEquals(expected.size(), actual.size(), "Длина должна совпадать с A*");
+        assertTrue(actual.get(actual.size() - 1).endsWith("(0,6)") || actual.get(actual.size() - 1).endsWith("(6,6)"),
+                   "Путь должен заканчиваться на цели");
+        
+        CompiledBoard unsolvable = CompiledBoard.compile(IcePuzzleSolver.createBoard(new String[]{"P.X", "XXX", "..G"}));
+        assertTrue(IcePuzzleSolver.solveIcePuzzle(unsolvable, 0, 0, bidirectional).isEmpty(),
+                   "Решение не должно быть найдено");
+    }
+
+    @Test
+    @DisplayName("Тест 19: Граф точек остановки даёт те же решения, что и сетка")
+    void testStopGraphSearch() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        StopGraph stops = board.stopGraph();
+        
+        assertSame(stops, board.stopGraph(), "Граф строится один раз на доску");
+        assertTrue(stops.nodeCount() < board.size(), "В графе только точки остановки");
+        assertEquals(-1, stops.nodeOf(board.cell(0, 1)), "Середина коридора не точка остановки");
+        
+        for (SearchMode mode : SearchMode.values()) {
+            for (int x = 0; x < board.rows(); x++) {
+                for (int y = 0; y < board.cols(); y++) {
+                    if (board.at(board.cell(x, y)) == 'X') {
+                        continue;
+                    }
+                    List<String> grid = IcePuzzleSolver.solveIcePuzzle(board, x, y,
+                            SearchOptions.defaults().mode(mode));
+                    List<String> condensed = IcePuzzleSolver.solveIcePuzzle(board, x, y,
+                            SearchOptions.defaults().mode(mode).stopGraph(true));
+                    assertEquals(grid.size(), condensed.size(), "Длина из (" + x + "," + y + ") в режиме " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 20: Компактный результат - коды ходов и ленивые строки")
+    void testCompactSolution() {
+        String[] rows = {
+            "P.G",
+            "...",
+            "..."
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        
+        Solution solution = IcePuzzleSolver.solve(board, 0, 0);
+        
+        assertTrue(solution.isSolved());
+        assertEquals(1, solution.moveCount());
+        assertEquals(CompiledBoard.RIGHT, solution.move(0));
+        assertEquals(board.cell(0, 0), solution.startCell());
+        assertEquals(board.cell(0, 2), solution.endCell());
+        assertEquals("RIGHT to (0,2)", solution.steps().get(0));
+        
+        Solution none = IcePuzzleSolver.solve(
+                CompiledBoard.compile(IcePuzzleSolver.createBoard(new String[]{"P.X", "XXX", "..G"})), 0, 0);
+        assertFalse(none.isSolved());
+        assertEquals(-1, none.endCell());
+        assertTrue(none.steps().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Тест 21: Поле расстояний отвечает на запросы с любого старта")
+    void testDistanceFieldQueries() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        DistanceField field = board.distanceField();
+        
+        assertSame(field, board.distanceField(), "Поле кэшируется");
+        assertEquals(0, field.distance(0, 6));
+        
+        for (int x = 0; x < board.rows(); x++) {
+            for (int y = 0; y < board.cols(); y++) {
+                if (board.at(board.cell(x, y)) == 'X') {
+                    continue;
+                }
+                Solution expected = IcePuzzleSolver.solve(board, x, y);
+                Solution actual = field.solveFrom(x, y);
+                assertEquals(expected.isSolved(), actual.isSolved());
+                assertEquals(expected.moveCount(), actual.moveCount(), "Число ходов из (" + x + "," + y + ")");
+            }
+        }
+        
+        board.invalidateDistanceField();
+        assertNotSame(field, board.distanceField(), "После сброса поле строится заново");
+    }
+
+    @Test
+    @DisplayName("Тест 22: IDA* с маленькой таблицей транспозиций остаётся оптимальным")
+    void testIdaStarWithTinyMemoryBudget() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        SearchOptions idaStar = SearchOptions.defaults().mode(SearchMode.IDA_STAR).memoryBudget(0);
+        
+        for (int x = 0; x < board.rows(); x++) {
+            for (int y = 0; y < board.cols(); y++) {
+                if (board.at(board.cell(x, y)) == 'X') {
+                    continue;
+                }
+                Solution expected = IcePuzzleSolver.solve(board, x, y);
+                Solution actual = IcePuzzleSolver.solve(board, x, y, idaStar);
+                assertEquals(expected.isSolved(), actual.isSolved());
+                assertEquals(expected.moveCount(), actual.moveCount(), "Число ходов из (" + x + "," + y + ")");
+            }
+        }
+        
+        CompiledBoard unsolvable = CompiledBoard.compile(IcePuzzleSolver.createBoard(new String[]{"P.X", "XXX", "..G"}));
+        assertFalse(IcePuzzleSolver.solve(unsolvable, 0, 0, idaStar).isSolved());
+    }
+
+    @Test
+    @DisplayName("Тест 23: параллельный A* находит оптимум при любом числе потоков")
+    void testParallelMatchesAStar() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        
+        for (int threads : new int[]{1, 2, 4}) {
+            for (boolean stopGraph : new boolean[]{false, true}) {
+                SearchOptions parallel = SearchOptions.defaults().mode(SearchMode.PARALLEL)
+                        .threads(threads).stopGraph(stopGraph);
+                for (int x = 0; x < board.rows(); x++) {
+                    for (int y = 0; y < board.cols(); y++) {
+                        if (board.at(board.cell(x, y)) == 'X') {
+                            continue;
+                        }
+                        Solution expected = IcePuzzleSolver.solve(board, x, y);
+                        Solution actual = IcePuzzleSolver.solve(board, x, y, parallel);
+                        assertEquals(expected.isSolved(), actual.isSolved());
+                        assertEquals(expected.moveCount(), actual.moveCount(),
+                                     threads + " потоков, старт (" + x + "," + y + ")");
+                    }
+                }
+            }
+        }
+        
+        CompiledBoard unsolvable = CompiledBoard.compile(IcePuzzleSolver.createBoard(new String[]{"P.X", "XXX", "..G"}));
+        assertFalse(IcePuzzleSolver.solve(unsolvable, 0, 0, SearchOptions.defaults().mode(SearchMode.PARALLEL).threads(3)).isSolved());
+    }
+
+    @Test
+    @DisplayName("Тест 24: счётчики поиска прикладываются только по запросу")
+    void testSearchStats() {
+        String[] rows = {
+            "P..X.XG",
+            "XX.X.X.",
+            "...X.X.",
+            ".XXX.X.",
+            "....X..",
+            ".XXXXX.",
+            "......G"
+        };
+        char[][] board = IcePuzzleSolver.createBoard(rows);
+        assertNull(IcePuzzleSolver.solve(board, 0, 0, SearchOptions.defaults()).stats());
+        
+        for (SearchMode mode : new SearchMode[]{SearchMode.ASTAR, SearchMode.BIDIRECTIONAL,
+                                                SearchMode.IDA_STAR, SearchMode.PARALLEL}) {
+            Solution solution = IcePuzzleSolver.solve(board, 0, 0,
+                    SearchOptions.defaults().mode(mode).threads(2).stats(true));
+            SearchStats stats = solution.stats();
+            assertNotNull(stats, mode.name());
+            assertEquals(mode, stats.mode());
+            assertTrue(solution.isSolved());
+            assertTrue(stats.expanded() >= solution.moveCount() - 1, mode + ": " + stats);
+            assertTrue(stats.generated() >= stats.expanded() - 1 && stats.generated() >= stats.duplicates(), mode + ": " + stats);
+            assertTrue(stats.slideSteps() >= stats.generated(), mode + ": " + stats);
+            assertTrue(stats.visited() > 0 && stats.peakOpen() > 0, mode + ": " + stats);
+            assertTrue(stats.compileNanos() > 0 && stats.searchNanos() > 0, mode + ": " + stats);
+        }
+        
+        // Уже скомпилированная доска: времени компиляции нет
+        SearchStats cached = IcePuzzleSolver.solve(CompiledBoard.compile(board), 0, 0,
+                SearchOptions.defaults().stats(true)).stats();
+        assertEquals(0, cached.compileNanos());
+    }
+
+    @Test
+    @DisplayName("Тест 25: бюджет и отмена останавливают поиск с частичным путём")
+    void testBudgetAndCancellation() {
+        // Редкие стены, цель в дальнем углу - до неё десятки раскрытий
+        Random random = new Random(25);
+        String[] rows = new String[60];
+        for (int i = 0; i < rows.length; i++) {
+            StringBuilder row = new StringBuilder();
+            for (int j = 0; j < 60; j++) {
+                row.append(random.nextInt(8) == 0 ? 'X' : '.');
+            }
+            rows[i] = row.toString();
+        }
+        rows[0] = "P" + rows[0].substring(1);
+        rows[59] = rows[59].substring(0, 59) + "G";
+        CompiledBoard board = CompiledBoard.compile(IcePuzzleSolver.createBoard(rows));
+        Solution full = IcePuzzleSolver.solve(board, 0, 0);
+        assertEquals(SearchOutcome.SOLVED, full.outcome());
+        
+        CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+        for (SearchMode mode : new SearchMode[]{SearchMode.ASTAR, SearchMode.BIDIRECTIONAL,
+                                                SearchMode.IDA_STAR, SearchMode.PARALLEL}) {
+            SearchOptions base = SearchOptions.defaults().mode(mode).threads(2);
+            assertEquals(SearchOutcome.SOLVED, IcePuzzleSolver.solve(board, 0, 0, base).outcome(), mode.name());
+            
+            // У PARALLEL лимит делится между потоками: по 2 раскрытия на поток - хотя бы одно не старт
+            Solution limited = IcePuzzleSolver.solve(board, 0, 0, SearchOptions.defaults().mode(mode).threads(2).nodeLimit(4));
+            assertEquals(SearchOutcome.BUDGET_EXCEEDED, limited.outcome(), mode.name());
+            assertTrue(limited.isPartial() && !limited.isSolved());
+            // Оценки SLIDE_BOUND у старта и соседей равны - берётся продвинувшаяся вершина, а не старт
+            assertTrue(limited.moveCount() > 0, mode + ": partial path stayed at the start");
+            // Частичный путь - настоящие ходы, которые кончаются в endCell
+            List<String> steps = limited.steps();
+            assertEquals(limited.moveCount(), steps.size());
+            if (!steps.isEmpty()) {
+                int end = limited.endCell();
+                assertTrue(steps.get(steps.size() - 1).endsWith("(" + end / 60 + "," + end % 60 + ")"), mode + ": " + steps);
+            }
+            assertTrue(IcePuzzleSolver.solveIcePuzzle(board, 0, 0, SearchOptions.defaults().mode(mode).nodeLimit(3)).isEmpty());
+            
+            assertEquals(SearchOutcome.BUDGET_EXCEEDED, IcePuzzleSolver.solve(board, 0, 0,
+                    SearchOptions.defaults().mode(mode).threads(2).timeLimit(Duration.ZERO)).outcome(), mode.name());
+            assertEquals(SearchOutcome.BUDGET_EXCEEDED, IcePuzzleSolver.solve(board, 0, 0,
+                    SearchOptions.defaults().mode(mode).threads(2).memoryLimit(16)).outcome(), mode.name());
+            assertEquals(SearchOutcome.CANCELLED, IcePuzzleSolver.solve(board, 0, 0,
+                    SearchOptions.defaults().mode(mode).threads(2).cancellation(cancelled)).outcome(), mode.name());
+            
+            Thread.currentThread().interrupt();
+            try {
+                assertEquals(SearchOutcome.CANCELLED, IcePuzzleSolver.solve(board, 0, 0, base).outcome(), mode.name());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+        
+        // Щедрый бюджет не мешает найти оптимум
+        Solution generous = IcePuzzleSolver.solve(board, 0, 0, SearchOptions.defaults()
+                .nodeLimit(1_000_000).timeLimit(Duration.ofMinutes(1)).memoryLimit(1L << 30));
+        assertEquals(full.moveCount(), generous.moveCount());
+    }
 }
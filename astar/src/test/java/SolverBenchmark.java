@@ -0,0 +1,94 @@
+// SolverBenchmark.java
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Ручной замер производительности поиска (не запускается surefire).
+// Запуск после mvn test-compile:
+//   java -cp target/classes:target/test-classes SolverBenchmark [размер] [плотность стен]
+// Для каждого режима печатается время и память, выделенная за один поиск -
+// все структуры поиска создаются в начале, так что это и пиковый объём на поиск.
+public class SolverBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+
+        char[][] board = randomBoard(size, density, 42);
+        CompiledBoard compiled = CompiledBoard.compile(board);
+        Solution solution = IcePuzzleSolver.solve(compiled, 0, 0);
+        System.out.println("Доска " + size + "x" + size + ", стены " + density +
+                           ", ходов: " + (solution.isSolved() ? solution.moveCount() : "нет решения"));
+
+        for (OpenListType type : OpenListType.values()) {
+            SearchOptions options = SearchOptions.defaults().openList(type);
+            report(type.name(), () -> AStarSearch.search(compiled, 0, 0, options));
+        }
+
+        SearchOptions bidirectional = SearchOptions.defaults().mode(SearchMode.BIDIRECTIONAL);
+        report(SearchMode.BIDIRECTIONAL.name(), () -> IcePuzzleSolver.solve(compiled, 0, 0, bidirectional));
+
+        SearchOptions idaStar = SearchOptions.defaults().mode(SearchMode.IDA_STAR);
+        report(SearchMode.IDA_STAR.name(), () -> IcePuzzleSolver.solve(compiled, 0, 0, idaStar));
+
+        StopGraph stops = compiled.stopGraph();
+        System.out.println("  Точек остановки: " + stops.nodeCount() + " из " + compiled.size() + " клеток");
+        for (SearchMode mode : new SearchMode[]{SearchMode.ASTAR, SearchMode.BIDIRECTIONAL}) {
+            SearchOptions options = SearchOptions.defaults().mode(mode).stopGraph(true);
+            report(mode + " (граф)", () -> IcePuzzleSolver.solve(compiled, 0, 0, options));
+        }
+
+        // Масштабирование параллельного A* по числу потоков
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            SearchOptions parallel = SearchOptions.defaults().mode(SearchMode.PARALLEL).threads(threads);
+            report("PARALLEL x" + threads, () -> IcePuzzleSolver.solve(compiled, 0, 0, parallel));
+        }
+
+        // Поиск по объектам State копирует доску в каждом узле - только для маленьких досок
+        if (size <= 100) {
+            report("STATES", () -> IcePuzzleSolver.solveWithStates(board, 0, 0));
+        }
+    }
+
+    static void report(String label, Runnable solve) {
+        double ms = measure(solve);
+        double kb = allocatedBytes(solve) / 1024.0;
+        System.out.printf("  %-22s %10.3f мс/поиск %12.1f КБ/поиск%n", label, ms, kb);
+    }
+
+    static double measure(Runnable solve) {
+        for (int i = 0; i < 20; i++) {
+            solve.run();
+        }
+        int runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            solve.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 2_000_000_000L);
+        return elapsed / 1e6 / runs;
+    }
+
+    static long allocatedBytes(Runnable solve) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        solve.run();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    }
+
+    // Случайная доска: старт в (0,0), цель в противоположном углу
+    static char[][] randomBoard(int size, double density, long seed) {
+        Random random = new Random(seed);
+        char[][] board = new char[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                board[i][j] = random.nextDouble() < density ? 'X' : '.';
+            }
+        }
+        board[0][0] = 'P';
+        board[size - 1][size - 1] = 'G';
+        return board;
+    }
+}
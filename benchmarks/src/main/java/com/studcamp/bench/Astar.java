@@ -0,0 +1,93 @@
+package com.studcamp.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+// Доступ к решателю astar. Его классы лежат в пакете по умолчанию, а из именованного
+// пакета (JMH генерирует код только для них) на них нельзя сослаться напрямую.
+// Дескрипторы статические и финальные, типы приведены к Object - JIT встраивает
+// вызов так же, как прямой
+final class Astar {
+
+    private static final MethodHandle COMPILE;
+    private static final MethodHandle SOLVE_BOARD;
+    private static final MethodHandle SOLVE_COMPILED;
+    private static final MethodHandle NEW_STATE;
+    private static final MethodHandle SIMULATE_SLIDE;
+    private static final MethodHandle NEIGHBORS_STATE;
+    private static final MethodHandle NEIGHBORS_COMPILED;
+    private static final MethodHandle CELL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> solver = Class.forName("IcePuzzleSolver");
+            Class<?> compiled = Class.forName("CompiledBoard");
+            Class<?> state = Class.forName("IcePuzzleSolver$State");
+
+            COMPILE = lookup.findStatic(compiled, "compile", MethodType.methodType(compiled, char[][].class))
+                            .asType(MethodType.methodType(Object.class, char[][].class));
+            SOLVE_BOARD = lookup.findStatic(solver, "solveIcePuzzle",
+                                            MethodType.methodType(List.class, char[][].class, int.class, int.class));
+            SOLVE_COMPILED = lookup.findStatic(solver, "solveIcePuzzle",
+                                               MethodType.methodType(List.class, compiled, int.class, int.class))
+                                   .asType(MethodType.methodType(List.class, Object.class, int.class, int.class));
+            NEW_STATE = lookup.findConstructor(state, MethodType.methodType(void.class, int.class, int.class,
+                                                                            char[][].class, int.class, state, String.class))
+                              .asType(MethodType.methodType(Object.class, int.class, int.class,
+                                                            char[][].class, int.class, Object.class, String.class));
+            SIMULATE_SLIDE = lookup.findStatic(solver, "simulateSlide",
+                                               MethodType.methodType(state, state, int.class, int.class, String.class))
+                                   .asType(MethodType.methodType(Object.class, Object.class, int.class, int.class, String.class));
+            NEIGHBORS_STATE = lookup.findStatic(solver, "generateNeighbors", MethodType.methodType(List.class, state))
+                                    .asType(MethodType.methodType(List.class, Object.class));
+            NEIGHBORS_COMPILED = lookup.findStatic(solver, "generateNeighbors",
+                                                   MethodType.methodType(int.class, compiled, int.class, int[].class))
+                                       .asType(MethodType.methodType(int.class, Object.class, int.class, int[].class));
+            CELL = lookup.findVirtual(compiled, "cell", MethodType.methodType(int.class, int.class, int.class))
+                         .asType(MethodType.methodType(int.class, Object.class, int.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Astar() {
+    }
+
+    // CompiledBoard.compile
+    static Object compile(char[][] board) throws Throwable {
+        return (Object) COMPILE.invokeExact(board);
+    }
+
+    // CompiledBoard.cell
+    static int cell(Object compiled, int x, int y) throws Throwable {
+        return (int) CELL.invokeExact(compiled, x, y);
+    }
+
+    static List<?> solveIcePuzzle(char[][] board, int startX, int startY) throws Throwable {
+        return (List<?>) SOLVE_BOARD.invokeExact(board, startX, startY);
+    }
+
+    static List<?> solveIcePuzzle(Object compiled, int startX, int startY) throws Throwable {
+        return (List<?>) SOLVE_COMPILED.invokeExact(compiled, startX, startY);
+    }
+
+    // new IcePuzzleSolver.State(x, y, board, 0, null, null)
+    static Object state(int x, int y, char[][] board) throws Throwable {
+        return (Object) NEW_STATE.invokeExact(x, y, board, 0, (Object) null, (String) null);
+    }
+
+    static Object simulateSlide(Object state, int dx, int dy, String direction) throws Throwable {
+        return (Object) SIMULATE_SLIDE.invokeExact(state, dx, dy, direction);
+    }
+
+    static List<?> generateNeighbors(Object state) throws Throwable {
+        return (List<?>) NEIGHBORS_STATE.invokeExact(state);
+    }
+
+    static int generateNeighbors(Object compiled, int cell, int[] neighbors) throws Throwable {
+        return (int) NEIGHBORS_COMPILED.invokeExact(compiled, cell, neighbors);
+    }
+}
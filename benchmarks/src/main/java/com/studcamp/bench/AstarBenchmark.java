@@ -0,0 +1,73 @@
+package com.studcamp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Горячие пути astar: полный поиск по char[][] и по скомпилированной доске,
+// один ход simulateSlide и генерация соседей в старом (State) и новом (таблица) виде
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AstarBenchmark {
+
+    @Param({"7", "100", "500"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    private char[][] board;
+    private Object compiled;
+    private Object start;
+    private int startCell;
+    private final int[] neighbors = new int[4];
+
+    @Setup
+    public void setUp() throws Throwable {
+        board = Boards.astar(size, density, 42);
+        compiled = Astar.compile(board);
+        start = Astar.state(0, 0, board);
+        startCell = Astar.cell(compiled, 0, 0);
+    }
+
+    // Включает компиляцию доски - так поиск вызывается из Main
+    @Benchmark
+    public Object solveIcePuzzle() throws Throwable {
+        return Astar.solveIcePuzzle(board, 0, 0);
+    }
+
+    @Benchmark
+    public Object solveCompiled() throws Throwable {
+        return Astar.solveIcePuzzle(compiled, 0, 0);
+    }
+
+    // Скольжение вправо от старта: копия доски и эвристика в новом State
+    @Benchmark
+    public Object simulateSlide() throws Throwable {
+        return Astar.simulateSlide(start, 0, 1, "RIGHT");
+    }
+
+    @Benchmark
+    public Object generateNeighborsStates() throws Throwable {
+        return Astar.generateNeighbors(start);
+    }
+
+    @Benchmark
+    public int generateNeighborsCompiled() throws Throwable {
+        return Astar.generateNeighbors(compiled, startCell, neighbors);
+    }
+}
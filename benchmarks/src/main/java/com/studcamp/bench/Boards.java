@@ -0,0 +1,43 @@
+package com.studcamp.bench;
+
+import java.util.Random;
+
+// Случайные доски для замеров - одинаковые от запуска к запуску при одном seed
+final class Boards {
+
+    private Boards() {
+    }
+
+    // Доска astar: старт 'P' в (0,0), цель 'G' в противоположном углу, стены 'X'
+    static char[][] astar(int size, double density, long seed) {
+        Random random = new Random(seed);
+        char[][] board = new char[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                board[i][j] = random.nextDouble() < density ? 'X' : '.';
+            }
+        }
+        board[0][0] = 'P';
+        board[size - 1][size - 1] = 'G';
+        return board;
+    }
+
+    // Текст лабиринта sliding: стены '0', выход '=' в середине, старт '+' в углу
+    static String sliding(int size, double density, long seed) {
+        Random random = new Random(seed);
+        StringBuilder maze = new StringBuilder(size * (size + 1));
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                char c = random.nextDouble() < density ? '0' : '.';
+                if (i == size / 2 && j == size / 2) {
+                    c = '=';
+                } else if (i == 0 && j == 0) {
+                    c = '+';
+                }
+                maze.append(c);
+            }
+            maze.append('\n');
+        }
+        return maze.toString();
+    }
+}
@@ -0,0 +1,258 @@
+package com.studcamp.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import com.studcamp.DistanceMap;
+import com.studcamp.IcePuzzleSolver;
+import com.studcamp.MazeGrid;
+import com.studcamp.TiledSolver;
+
+// Генератор лабиринтов для замеров и долгих прогонов, в обоих диалектах.
+// Строка i зависит только от seed и i, поэтому файл пишется построчно
+// и в памяти держится одна строка - размер ограничен диском.
+// Старт всегда в (0,0), цель - в противоположном углу.
+//
+// Структуры:
+//   OPEN_ICE  - стены разбросаны с вероятностью density
+//   ROOMS     - комнаты ROOM x ROOM с одной дверью в каждой стене,
+//               внутри комнат стены с вероятностью density
+//   CORRIDORS - змейка коридоров: сплошные ряды стен с дверью попеременно
+//               в правой и левой половине, место двери зависит от seed;
+//               ширина коридора подобрана так, чтобы доля рядов-стен была около density
+//
+// minDepth - наименьшая глубина решения: ходов astar или свайпов sliding от старта
+// до цели. Лабиринт проверяется решателем; если он мельче или нерешаем,
+// пробуются следующие seed, до ATTEMPTS раз
+public class MazeGenerator {
+
+    public enum Dialect {
+        ASTAR('P', 'G', 'X'),
+        SLIDING('+', '=', '0');
+
+        final byte start;
+        final byte goal;
+        final byte wall;
+
+        Dialect(char start, char goal, char wall) {
+            this.start = (byte) start;
+            this.goal = (byte) goal;
+            this.wall = (byte) wall;
+        }
+    }
+
+    public enum Structure {
+        OPEN_ICE, ROOMS, CORRIDORS
+    }
+
+    static final int ROOM = 12;
+    static final int ATTEMPTS = 20;
+    // Больше стольких клеток проверка sliding идёт через TiledSolver на диске
+    private static final long IN_MEMORY_CELLS = 50_000_000L;
+
+    private final Dialect dialect;
+    private long seed = 1;
+    private int rows = 100;
+    private int cols = 100;
+    private double density = 0.2;
+    private Structure structure = Structure.OPEN_ICE;
+    private int minDepth;
+
+    public MazeGenerator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public MazeGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public MazeGenerator size(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        return this;
+    }
+
+    public MazeGenerator density(double density) {
+        this.density = density;
+        return this;
+    }
+
+    public MazeGenerator structure(Structure structure) {
+        this.structure = structure;
+        return this;
+    }
+
+    public MazeGenerator minDepth(int minDepth) {
+        this.minDepth = minDepth;
+        return this;
+    }
+
+    // Пишет лабиринт не мельче minDepth; возвращает seed, на котором это получилось
+    public long generate(Path path) throws IOException {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            long current = seed + attempt;
+            write(path, current);
+            if (minDepth <= 0 || depth(path) >= minDepth) {
+                return current;
+            }
+        }
+        Files.deleteIfExists(path);
+        throw new IllegalStateException("No maze with depth >= " + minDepth + " in " + ATTEMPTS +
+                                        " seeds from " + seed + "; lower the density or the depth");
+    }
+
+    // Лабиринт с данным seed, без проверки глубины
+    public void write(Path path, long seed) throws IOException {
+        byte[] row = new byte[cols + 1];
+        row[cols] = '\n';
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            for (int i = 0; i < rows; i++) {
+                row(seed, i, row);
+                out.write(row);
+            }
+        }
+    }
+
+    // Строка i: cols символов диалекта в out
+    void row(long seed, int i, byte[] out) {
+        SplittableRandom random = new SplittableRandom(mix(seed, i));
+        int corridor = Math.max(1, (int) Math.round(1 / Math.max(density, 1e-9)) - 1);
+        for (int j = 0; j < cols; j++) {
+            boolean wall;
+            switch (structure) {
+                case ROOMS:
+                    wall = roomWall(seed, i, j) || (!onRoomLine(i, j) && random.nextDouble() < density);
+                    break;
+                case CORRIDORS:
+                    wall = corridorWall(seed, i, j, corridor);
+                    break;
+                default:
+                    wall = random.nextDouble() < density;
+            }
+            out[j] = wall ? dialect.wall : (byte) '.';
+        }
+        if (i == 0) {
+            out[0] = dialect.start;
+        }
+        if (i == rows - 1) {
+            out[cols - 1] = dialect.goal;
+        }
+    }
+
+    // Глубина решения записанного лабиринта или -1, если он нерешаем
+    public int depth(Path path) throws IOException {
+        if (dialect == Dialect.SLIDING) {
+            if ((long) rows * cols <= IN_MEMORY_CELLS) {
+                DistanceMap result = IcePuzzleSolver.solvePuzzle(MazeGrid.read(path));
+                int distance = result.distance(0);
+                return distance == DistanceMap.UNREACHABLE ? -1 : distance;
+            }
+            Path workDir = path.toAbsolutePath().getParent();
+            try (TiledSolver solver = TiledSolver.solve(path, workDir, 1024)) {
+                int distance = solver.distance(0, 0);
+                return distance == DistanceMap.UNREACHABLE ? -1 : distance;
+            }
+        }
+        // astar держит доску в памяти: char[][] и таблицу скольжений
+        char[][] board = new char[rows][];
+        List<String> lines = Files.readAllLines(path);
+        for (int i = 0; i < rows; i++) {
+            board[i] = lines.get(i).toCharArray();
+        }
+        try {
+            List<?> moves = Astar.solveIcePuzzle(board, 0, 0);
+            return moves.isEmpty() ? -1 : moves.size();
+        } catch (Throwable e) {
+            throw new IllegalStateException("astar solver failed", e);
+        }
+    }
+
+    private boolean onRoomLine(int i, int j) {
+        return (i + 1) % ROOM == 0 || (j + 1) % ROOM == 0;
+    }
+
+    // Стены комнат - линии через ROOM клеток, в каждом отрезке между
+    // перекрёстками одна дверь в случайном месте
+    private boolean roomWall(long seed, int i, int j) {
+        boolean horizontal = (i + 1) % ROOM == 0;
+        boolean vertical = (j + 1) % ROOM == 0;
+        if (horizontal && vertical) {
+            return true;
+        }
+        if (horizontal) {
+            return j % ROOM != door(seed, i / ROOM, j / ROOM, 0, cols - j / ROOM * ROOM);
+        }
+        if (vertical) {
+            return i % ROOM != door(seed, i / ROOM, j / ROOM, 1, rows - i / ROOM * ROOM);
+        }
+        return false;
+    }
+
+    // Дверь в отрезке стены; у края лабиринта отрезок короче - дверь не выходит за него
+    private static int door(long seed, int roomRow, int roomCol, int side, int remaining) {
+        long key = mix(mix(seed, roomRow), ((long) roomCol << 1) | side);
+        return new SplittableRandom(key).nextInt(Math.min(ROOM - 1, remaining));
+    }
+
+    // Ряд-стена с одной дверью: у чётных рядов в правой половине, у нечётных - в левой
+    private boolean corridorWall(long seed, int i, int j, int corridor) {
+        if ((i + 1) % (corridor + 1) != 0) {
+            return false;
+        }
+        int index = i / (corridor + 1);
+        int offset = new SplittableRandom(mix(seed, index)).nextInt((cols + 1) / 2);
+        int doorColumn = index % 2 == 0 ? cols - 1 - offset : offset;
+        return j != doorColumn;
+    }
+
+    private static long mix(long seed, long value) {
+        long z = seed * 0x9E3779B97F4A7C15L + value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Запуск:
+    //   java -cp target/benchmarks.jar com.studcamp.bench.MazeGenerator sliding 1000x1000
+    //        [плотность] [open_ice|rooms|corridors] [seed] [мин. глубина] [число файлов] [каталог]
+    // Пишет maze1.txt ... mazeN.txt; у файла n свой поток seed: mix(seed, n) плюс попытки,
+    // так что попытки соседних файлов не совпадают и файлы в наборе не повторяются
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: MazeGenerator astar|sliding ROWSxCOLS [density] [open_ice|rooms|corridors]" +
+                               " [seed] [min-depth] [count] [dir]");
+            return;
+        }
+        Dialect dialect = Dialect.valueOf(args[0].toUpperCase(Locale.ROOT));
+        String[] size = args[1].toLowerCase(Locale.ROOT).split("x");
+        int rows = Integer.parseInt(size[0]);
+        int cols = Integer.parseInt(size[size.length - 1]);
+        double density = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+        Structure structure = args.length > 3 ? Structure.valueOf(args[3].toUpperCase(Locale.ROOT))
+                                              : Structure.OPEN_ICE;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        int minDepth = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int count = args.length > 6 ? Integer.parseInt(args[6]) : 1;
+        Path dir = Paths.get(args.length > 7 ? args[7] : ".");
+        Files.createDirectories(dir);
+
+        MazeGenerator generator = new MazeGenerator(dialect).size(rows, cols).density(density)
+                                                            .structure(structure).minDepth(minDepth);
+        for (int n = 1; n <= count; n++) {
+            Path path = dir.resolve("maze" + n + ".txt");
+            long start = System.nanoTime();
+            long used = generator.seed(mix(seed, n)).generate(path);
+            System.out.printf(Locale.ROOT, "%s: %dx%d %s, seed %d, %.1f MB in %.1f s%n", path, rows, cols,
+                              structure.name().toLowerCase(Locale.ROOT), used,
+                              Files.size(path) / 1048576.0, (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.studcamp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import com.studcamp.DistanceMap;
+import com.studcamp.IcePuzzleSolver;
+import com.studcamp.MazeGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Горячие пути sliding: разбор, поиск и форматирование - в компактном виде
+// и через совместимые обёртки String[][]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlidingBenchmark {
+
+    @Param({"100", "1000", "2000"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    private String text;
+    private MazeGrid grid;
+    private String[][] cells;
+    private DistanceMap result;
+    private String[][] labels;
+
+    @Setup
+    public void setUp() {
+        text = Boards.sliding(size, density, 42);
+        grid = MazeGrid.parse(text);
+        cells = IcePuzzleSolver.parseInput(text);
+        result = IcePuzzleSolver.solvePuzzle(grid);
+        labels = result.toStrings();
+    }
+
+    @Benchmark
+    public Object parseInput() {
+        return IcePuzzleSolver.parseInput(text);
+    }
+
+    @Benchmark
+    public Object parseGrid() {
+        return MazeGrid.parse(text);
+    }
+
+    @Benchmark
+    public Object solvePuzzle() {
+        return IcePuzzleSolver.solvePuzzle(grid);
+    }
+
+    @Benchmark
+    public Object solvePuzzleStrings() {
+        return IcePuzzleSolver.solvePuzzle(cells);
+    }
+
+    @Benchmark
+    public Object formatOutput() {
+        return IcePuzzleSolver.formatOutput(result);
+    }
+
+    @Benchmark
+    public Object formatOutputStrings() {
+        return IcePuzzleSolver.formatOutput(labels);
+    }
+}
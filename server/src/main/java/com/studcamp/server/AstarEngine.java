@@ -0,0 +1,123 @@
+package com.studcamp.server;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.List;
+
+// Доступ к решателю astar из именованного пакета - как Astar в benchmarks:
+// классы astar лежат в пакете по умолчанию, поэтому вызовы идут через
+// статические дескрипторы с типами, приведёнными к Object.
+// Исключения решателя проходят как есть, см. failure
+final class AstarEngine {
+
+    private static final Class<?> SEARCH_MODE;
+    private static final MethodHandle COMPILE;
+    private static final MethodHandle DEFAULT_OPTIONS;
+    private static final MethodHandle MODE;
+    private static final MethodHandle TIME_LIMIT;
+    private static final MethodHandle SOLVE;
+    private static final MethodHandle OUTCOME;
+    private static final MethodHandle STEPS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> solver = Class.forName("IcePuzzleSolver");
+            Class<?> compiled = Class.forName("CompiledBoard");
+            Class<?> options = Class.forName("SearchOptions");
+            Class<?> solution = Class.forName("Solution");
+            Class<?> outcome = Class.forName("SearchOutcome");
+            SEARCH_MODE = Class.forName("SearchMode");
+
+            COMPILE = lookup.findStatic(compiled, "compile", MethodType.methodType(compiled, char[][].class))
+                            .asType(MethodType.methodType(Object.class, char[][].class));
+            DEFAULT_OPTIONS = lookup.findStatic(options, "defaults", MethodType.methodType(options))
+                                    .asType(MethodType.methodType(Object.class));
+            MODE = lookup.findVirtual(options, "mode", MethodType.methodType(options, SEARCH_MODE))
+                         .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            TIME_LIMIT = lookup.findVirtual(options, "timeLimit", MethodType.methodType(options, Duration.class))
+                               .asType(MethodType.methodType(Object.class, Object.class, Duration.class));
+            SOLVE = lookup.findStatic(solver, "solve",
+                                      MethodType.methodType(solution, compiled, int.class, int.class, options))
+                          .asType(MethodType.methodType(Object.class, Object.class, int.class, int.class, Object.class));
+            OUTCOME = lookup.findVirtual(solution, "outcome", MethodType.methodType(outcome))
+                            .asType(MethodType.methodType(Object.class, Object.class));
+            STEPS = lookup.findVirtual(solution, "steps", MethodType.methodType(List.class))
+                          .asType(MethodType.methodType(List.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AstarEngine() {
+    }
+
+    // CompiledBoard.compile; таблица скольжений и поле расстояний живут в нём
+    // и переиспользуются всеми запросами к этой доске
+    static Object compile(char[][] board) {
+        try {
+            return (Object) COMPILE.invokeExact(board);
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    // SearchOptions с режимом по имени SearchMode и лимитом времени (null - без лимита)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object options(String mode, Duration timeLimit) {
+        try {
+            Object options = (Object) DEFAULT_OPTIONS.invokeExact();
+            if (mode != null) {
+                Object value = Enum.valueOf((Class) SEARCH_MODE, mode);
+                options = (Object) MODE.invokeExact(options, value);
+            }
+            if (timeLimit != null) {
+                options = (Object) TIME_LIMIT.invokeExact(options, timeLimit);
+            }
+            return options;
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    // IcePuzzleSolver.solve - Solution
+    static Object solve(Object compiled, int startX, int startY, Object options) {
+        try {
+            return (Object) SOLVE.invokeExact(compiled, startX, startY, options);
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    // Имя SearchOutcome решения
+    static String outcome(Object solution) {
+        try {
+            return ((Enum<?>) (Object) OUTCOME.invokeExact(solution)).name();
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    static List<?> steps(Object solution) {
+        try {
+            return (List<?>) STEPS.invokeExact(solution);
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    // Ошибка вызова через дескриптор: Error и непроверяемые исключения - как есть
+    // (IllegalArgumentException решателя становится ответом 400), проверяемые,
+    // которых методы astar не объявляют, - обёрнутыми
+    private static RuntimeException failure(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new IllegalStateException("astar solver failed", e);
+    }
+}
@@ -0,0 +1,150 @@
+package com.studcamp.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+// Тёплый кэш сервера: готовые значения по хэшу доски с вытеснением давно
+// не использованных. Вес записи задаёт weigher - по умолчанию 1, тогда
+// capacity - число записей; для готовых ответов вес - их размер в байтах.
+// Одновременные промахи по одному ключу склеиваются: считает первый запрос,
+// остальные ждут его результат. Ошибка вычисления достаётся всем ждущим
+// и в кэш не попадает
+final class BoardCache<V> {
+
+    private final long capacity;
+    private final ToLongFunction<V> weigher;
+    // Порядок доступа - как у ResultCache в sliding
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Размер всех записей; меняется только под монитором кэша
+    private long weight;
+
+    BoardCache(int capacity) {
+        this(capacity, value -> 1);
+    }
+
+    BoardCache(long capacity, ToLongFunction<V> weigher) {
+        this.capacity = capacity;
+        this.weigher = weigher;
+    }
+
+    // SHA-256 движка и текста доски
+    static String key(String engine, String board) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((engine + "/").getBytes(StandardCharsets.UTF_8));
+        digest.update(board.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    V get(String key, Callable<V> compute) throws Exception {
+        V cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+        try {
+            // Пока мы вставали в очередь, предыдущее вычисление могло закончиться
+            V value = lookup(key);
+            if (value != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                value = compute.call();
+                store(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    // Запросов, дождавшихся чужого вычисления
+    long coalesced() {
+        return coalesced.get();
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    private synchronized V lookup(String key) {
+        return entries.get(key);
+    }
+
+    // Как ResultCache в sliding: запись тяжелее всего кэша вытесняется сразу
+    private synchronized void store(String key, V value) {
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += weigher.applyAsLong(value);
+        Iterator<Map.Entry<String, V>> eldest = entries.entrySet().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            weight -= weigher.applyAsLong(eldest.next().getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.studcamp.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Гистограмма задержек в микросекундах для p50/p99 без хранения замеров.
+// Каждая степень двойки делится на SUB_BUCKETS корзин, так что перцентиль
+// известен с точностью около 1/SUB_BUCKETS (6%). Запись - один атомарный
+// инкремент, её можно вызывать из любого числа потоков
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(2);
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(micros));
+        totals.incrementAndGet(0);
+        totals.accumulateAndGet(1, micros, Math::max);
+    }
+
+    long count() {
+        return totals.get(0);
+    }
+
+    long maxMicros() {
+        return totals.get(1);
+    }
+
+    // Верхняя граница корзины, в которую попал перцентиль p (0..100)
+    long percentileMicros(double p) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * p / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros());
+            }
+        }
+        return maxMicros();
+    }
+
+    // Значения меньше SUB_BUCKETS - каждое в своей корзине,
+    // дальше - SUB_BUCKETS корзин на степень двойки
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
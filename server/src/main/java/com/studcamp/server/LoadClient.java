@@ -0,0 +1,80 @@
+package com.studcamp.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный клиент для SolverServer: concurrency потоков без пауз шлют
+// одну и ту же доску, каждый ждёт ответа перед следующим запросом.
+// Первые warmup секунд не учитываются - в них прогревается JIT и наполняются кэши.
+// Печатает req/s и перцентили задержки, измеренные на стороне клиента
+public class LoadClient {
+
+    // Запуск:
+    //   java -cp target/solver-server.jar com.studcamp.server.LoadClient
+    //        http://127.0.0.1:8080/sliding maze1.txt [потоки] [секунды] [прогрев, секунды]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: LoadClient URL BOARD_FILE [concurrency] [seconds] [warmup-seconds]");
+            return;
+        }
+        URI uri = URI.create(args[0]);
+        Path boardFile = Paths.get(args[1]);
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        byte[] board = Files.readAllBytes(boardFile);
+        ExecutorService clientPool = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder().executor(clientPool).build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                                         .POST(HttpRequest.BodyPublishers.ofByteArray(board))
+                                         .build();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        Future<?>[] running = new Future<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            running[i] = workers.submit(() -> {
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long finished = System.nanoTime();
+                    if (now >= warmupEnd) {
+                        latency.record(finished - now);
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        workers.shutdown();
+        clientPool.shutdown();
+
+        System.out.printf(Locale.ROOT, "%s, %s: %d threads, %d s after %d s warmup%n",
+                          uri, boardFile.getFileName(), concurrency, seconds, warmup);
+        System.out.printf(Locale.ROOT, "%d requests (%d errors): %.1f req/s, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                          latency.count(), errors.get(), latency.count() / (double) seconds,
+                          latency.percentileMicros(50) / 1e3, latency.percentileMicros(99) / 1e3,
+                          latency.maxMicros() / 1e3);
+    }
+}
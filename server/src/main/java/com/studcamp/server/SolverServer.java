@@ -0,0 +1,274 @@
+package com.studcamp.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.studcamp.DistanceMap;
+import com.studcamp.IcePuzzleSolver;
+import com.studcamp.MazeGrid;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Долгоживущий локальный сервер обоих решателей: JVM, JIT и кэши прогреваются
+// один раз, а не на каждый запуск Main. Слушает только 127.0.0.1.
+//
+//   POST /astar?x=0&y=0&mode=ASTAR&timeout_ms=100   тело - доска astar ('P', 'G', 'X')
+//        ответ: строка "ИСХОД ходов", затем ходы "RIGHT to (0,2)" по одному в строке.
+//        Без x и y старт - клетка 'P'; mode - имя SearchMode; timeout_ms - лимит
+//        времени поиска, по истечении - BUDGET_EXCEEDED и частичный путь
+//   POST /sliding                                   тело - лабиринт sliding ('+', '=', '0')
+//        ответ: поле расстояний в формате _result.txt
+//   GET  /metrics                                   число запросов, req/s, p50/p99/max
+//        по каждому решателю и счётчики кэшей, строки "имя значение"
+//
+// Кэши по хэшу текста доски: для astar - скомпилированная доска (таблица
+// скольжений, граф остановок и поле расстояний копятся в ней между запросами),
+// для sliding - готовый ответ, он зависит только от лабиринта.
+// Одновременные запросы к одной ещё не закэшированной доске считаются один раз
+public class SolverServer {
+
+    // Доска astar в кэше: скомпилированная, с размерами и найденной клеткой 'P'
+    private static final class AstarBoard {
+        final Object compiled;
+        final int rows;
+        final int cols;
+        final int startX;
+        final int startY;
+
+        AstarBoard(Object compiled, int rows, int cols, int startX, int startY) {
+            this.compiled = compiled;
+            this.rows = rows;
+            this.cols = cols;
+            this.startX = startX;
+            this.startY = startY;
+        }
+    }
+
+    // Счётчики одного адреса
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    private interface Handler {
+        byte[] handle(HttpExchange exchange) throws Exception;
+    }
+
+    private final BoardCache<AstarBoard> astarBoards;
+    private final BoardCache<byte[]> slidingResults;
+    private final Duration defaultTimeLimit;
+    private final Endpoint astar = new Endpoint();
+    private final Endpoint sliding = new Endpoint();
+    private final long started = System.nanoTime();
+
+    // Ответ sliding - поле расстояний в тексте, для большого лабиринта это
+    // десятки мегабайт, поэтому его кэш ограничен байтами, а не числом досок
+    SolverServer(int cacheBoards, long slidingCacheBytes, Duration defaultTimeLimit) {
+        this.astarBoards = new BoardCache<>(cacheBoards);
+        this.slidingResults = new BoardCache<>(slidingCacheBytes, answer -> answer.length);
+        this.defaultTimeLimit = defaultTimeLimit;
+    }
+
+    HttpServer start(int port, ExecutorService executor) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/astar", exchange -> serve(exchange, astar, "POST", this::solveAstar));
+        server.createContext("/sliding", exchange -> serve(exchange, sliding, "POST", this::solveSliding));
+        server.createContext("/metrics", exchange -> serve(exchange, null, "GET", ignored -> metrics()));
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    // Ответ, код и замер задержки; 400 - плохая доска или параметры, 500 - сбой решателя
+    private void serve(HttpExchange exchange, Endpoint endpoint, String method, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        byte[] body;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                status = 405;
+                body = ("Use " + method + "\n").getBytes(StandardCharsets.UTF_8);
+            } else {
+                body = handler.handle(exchange);
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = ("Bad request: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (Throwable e) {
+            status = 500;
+            body = ("Solver failed: " + e + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            if (endpoint != null) {
+                endpoint.latency.record(System.nanoTime() - start);
+                if (status != 200) {
+                    endpoint.errors.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private byte[] solveAstar(HttpExchange exchange) throws Exception {
+        String text = requestBody(exchange);
+        Map<String, String> query = query(exchange);
+        AstarBoard board = astarBoards.get(BoardCache.key("astar", text), () -> compileAstar(text));
+
+        int startX = query.containsKey("x") ? Integer.parseInt(query.get("x")) : board.startX;
+        int startY = query.containsKey("y") ? Integer.parseInt(query.get("y")) : board.startY;
+        if (startX < 0 || startY < 0) {
+            throw new IllegalArgumentException("no start: pass x and y or put 'P' on the board");
+        }
+        if (startX >= board.rows || startY >= board.cols) {
+            throw new IllegalArgumentException("start (" + startX + "," + startY + ") is outside the board");
+        }
+        Duration timeLimit = query.containsKey("timeout_ms")
+                             ? Duration.ofMillis(Long.parseLong(query.get("timeout_ms"))) : defaultTimeLimit;
+        String mode = query.get("mode");
+        Object solution = AstarEngine.solve(board.compiled, startX, startY,
+                                            AstarEngine.options(mode == null ? null : mode.toUpperCase(Locale.ROOT),
+                                                                timeLimit));
+
+        List<?> steps = AstarEngine.steps(solution);
+        StringBuilder out = new StringBuilder();
+        out.append(AstarEngine.outcome(solution)).append(' ').append(steps.size()).append('\n');
+        for (Object step : steps) {
+            out.append(step).append('\n');
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static AstarBoard compileAstar(String text) {
+        String[] lines = text.strip().split("\r?\n");
+        char[][] board = new char[lines.length][];
+        int startX = -1;
+        int startY = -1;
+        for (int i = 0; i < lines.length; i++) {
+            board[i] = lines[i].strip().toCharArray();
+            if (board[i].length != board[0].length || board[i].length == 0) {
+                throw new IllegalArgumentException("board rows must be non-empty and of equal length");
+            }
+            for (int j = 0; j < board[i].length && startX < 0; j++) {
+                if (board[i][j] == 'P') {
+                    startX = i;
+                    startY = j;
+                }
+            }
+        }
+        return new AstarBoard(AstarEngine.compile(board), board.length, board[0].length, startX, startY);
+    }
+
+    private byte[] solveSliding(HttpExchange exchange) throws Exception {
+        String text = requestBody(exchange);
+        return slidingResults.get(BoardCache.key("sliding", text), () -> {
+            // solve, а не solvePuzzle: тот печатает предупреждение о лабиринте без цели в консоль сервера
+            DistanceMap result = IcePuzzleSolver.solve(MazeGrid.parse(text));
+            return (IcePuzzleSolver.formatOutput(result) + "\n").getBytes(StandardCharsets.UTF_8);
+        });
+    }
+
+    byte[] metrics() {
+        double seconds = Math.max(System.nanoTime() - started, 1) / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "uptime_seconds %.1f%n", seconds));
+        appendEndpoint(out, "astar", astar, seconds);
+        appendCache(out, "astar", astarBoards);
+        appendEndpoint(out, "sliding", sliding, seconds);
+        appendCache(out, "sliding", slidingResults);
+        out.append(String.format(Locale.ROOT, "sliding_cache_bytes %d%n", slidingResults.weight()));
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendEndpoint(StringBuilder out, String name, Endpoint endpoint, double seconds) {
+        LatencyHistogram latency = endpoint.latency;
+        out.append(String.format(Locale.ROOT, "%s_requests %d%n", name, latency.count()));
+        out.append(String.format(Locale.ROOT, "%s_errors %d%n", name, endpoint.errors.get()));
+        out.append(String.format(Locale.ROOT, "%s_requests_per_second %.1f%n", name, latency.count() / seconds));
+        out.append(String.format(Locale.ROOT, "%s_latency_p50_ms %.3f%n", name, latency.percentileMicros(50) / 1e3));
+        out.append(String.format(Locale.ROOT, "%s_latency_p99_ms %.3f%n", name, latency.percentileMicros(99) / 1e3));
+        out.append(String.format(Locale.ROOT, "%s_latency_max_ms %.3f%n", name, latency.maxMicros() / 1e3));
+    }
+
+    private static void appendCache(StringBuilder out, String name, BoardCache<?> cache) {
+        out.append(String.format(Locale.ROOT, "%s_cache_boards %d%n", name, cache.size()));
+        out.append(String.format(Locale.ROOT, "%s_cache_hits %d%n", name, cache.hits()));
+        out.append(String.format(Locale.ROOT, "%s_cache_misses %d%n", name, cache.misses()));
+        out.append(String.format(Locale.ROOT, "%s_cache_coalesced %d%n", name, cache.coalesced()));
+        out.append(String.format(Locale.ROOT, "%s_cache_evicted %d%n", name, cache.evictions()));
+    }
+
+    private static String requestBody(HttpExchange exchange) throws IOException {
+        String text = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (text.isBlank()) {
+            throw new IllegalArgumentException("empty board");
+        }
+        return text;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return result;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            result.put(name, value);
+        }
+        return result;
+    }
+
+    // Запуск:
+    //   java -jar target/solver-server.jar [порт] [потоки] [досок в кэше astar] [лимит astar, мс]
+    //        [кэш ответов sliding, МБ]
+    // По умолчанию 8080, по числу ядер, 256 досок, без лимита времени, 64 МБ
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int cacheBoards = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        long timeoutMillis = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        long slidingCacheMegabytes = args.length > 4 ? Long.parseLong(args[4]) : 64;
+        // Без TCP_NODELAY ответ, записанный заголовками и телом порознь, ждёт
+        // отложенного ACK клиента - около 40 мс на каждый запрос
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        SolverServer solver = new SolverServer(cacheBoards, slidingCacheMegabytes << 20,
+                                               timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : null);
+        HttpServer server = solver.start(port, executor);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        System.out.printf(Locale.ROOT, "Solver server on http://127.0.0.1:%d (%d threads, %d astar boards," +
+                          " %d MB of sliding answers cached)%n",
+                          server.getAddress().getPort(), threads, cacheBoards, slidingCacheMegabytes);
+    }
+}
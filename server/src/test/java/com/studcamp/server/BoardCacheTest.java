@@ -0,0 +1,129 @@
+package com.studcamp.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BoardCacheTest {
+
+    private static final int CLIENTS = 8;
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Тест 1: Одновременные промахи по одному ключу считаются один раз")
+    void testConcurrentMissesCoalesce() throws Exception {
+        BoardCache<String> cache = new BoardCache<>(16);
+        AtomicInteger computed = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<String>> answers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                answers.add(executor.submit(() -> cache.get("board", () -> {
+                    computed.incrementAndGet();
+                    release.await();
+                    return "answer";
+                })));
+            }
+            // Вычисление держим, пока все остальные не встанут в ожидание
+            awaitCoalesced(cache, CLIENTS - 1);
+            release.countDown();
+            for (Future<String> answer : answers) {
+                assertEquals("answer", answer.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, computed.get());
+        assertEquals(1, cache.misses());
+        assertEquals(CLIENTS - 1, cache.coalesced());
+        assertEquals("answer", cache.get("board", () -> fail("cached value must be reused")));
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Тест 2: Ошибка вычисления достаётся всем ждущим и не кэшируется")
+    void testFailureReachesEveryWaiter() throws Exception {
+        BoardCache<String> cache = new BoardCache<>(16);
+        IllegalStateException failure = new IllegalStateException("solver failed");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<String>> answers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                answers.add(executor.submit(() -> cache.get("board", () -> {
+                    release.await();
+                    throw failure;
+                })));
+            }
+            awaitCoalesced(cache, CLIENTS - 1);
+            release.countDown();
+            for (Future<String> answer : answers) {
+                ExecutionException e = assertThrows(ExecutionException.class, answer::get);
+                assertSame(failure, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, cache.size());
+
+        // Следующий запрос считает заново
+        assertEquals("answer", cache.get("board", () -> "answer"));
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Тест 3: При заполнении вытесняется давно не использованная доска")
+    void testLruEviction() throws Exception {
+        BoardCache<String> cache = new BoardCache<>(2);
+        cache.get("a", () -> "A");
+        cache.get("b", () -> "B");
+        // Обращение к a делает b самой старой
+        assertEquals("A", cache.get("a", () -> fail("a must be cached")));
+        cache.get("c", () -> "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertEquals("A", cache.get("a", () -> fail("a must stay cached")));
+        assertEquals("C", cache.get("c", () -> fail("c must stay cached")));
+        assertEquals("B2", cache.get("b", () -> "B2"));
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    @DisplayName("Тест 4: Кэш ответов ограничен суммой байтов, а не числом досок")
+    void testWeightedEviction() throws Exception {
+        BoardCache<byte[]> cache = new BoardCache<>(10, answer -> answer.length);
+        cache.get("a", () -> new byte[4]);
+        cache.get("b", () -> new byte[4]);
+        assertEquals(8, cache.weight());
+
+        cache.get("c", () -> new byte[4]);
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.weight());
+        assertEquals(1, cache.evictions());
+
+        // Ответ больше всего кэша отдаётся, но не остаётся в нём
+        assertEquals(11, cache.get("huge", () -> new byte[11]).length);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    private static void awaitCoalesced(BoardCache<?> cache, int waiters) throws InterruptedException {
+        while (cache.coalesced() < waiters) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.studcamp.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Тест 1: Малые значения - каждое в своей корзине")
+    void testExactSmallBuckets() {
+        for (long value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.index(value));
+            assertEquals(value, LatencyHistogram.upperBound((int) value));
+        }
+        assertEquals(16, LatencyHistogram.index(16));
+        assertEquals(16, LatencyHistogram.upperBound(16));
+        // С 32 корзина шириной 2
+        assertEquals(LatencyHistogram.index(32), LatencyHistogram.index(33));
+        assertEquals(33, LatencyHistogram.upperBound(LatencyHistogram.index(32)));
+    }
+
+    @Test
+    @DisplayName("Тест 2: Корзины идут подряд без пропусков, ширина не больше 1/16 значения")
+    void testBucketBounds() {
+        long[] values = {17, 31, 32, 100, 1000, 4095, 4096, 123_456, 1L << 40, (1L << 40) + 12_345, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.index(value);
+            long upper = LatencyHistogram.upperBound(index);
+            long lower = LatencyHistogram.upperBound(index - 1) + 1;
+            assertTrue(lower <= value && value <= upper, value + " outside [" + lower + ", " + upper + "]");
+            assertTrue(upper - lower + 1 <= Math.max(1, value / 16), "bucket of " + value + " is too wide");
+        }
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.index(value);
+            assertEquals(index, LatencyHistogram.index(LatencyHistogram.upperBound(index)));
+            assertEquals(index + 1, LatencyHistogram.index(LatencyHistogram.upperBound(index) + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 3: Перцентили с точностью корзины")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileMicros(50));
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1000, histogram.maxMicros());
+        long p50 = histogram.percentileMicros(50);
+        long p99 = histogram.percentileMicros(99);
+        assertTrue(p50 >= 500 && p50 <= 500 * 17 / 16, "p50 = " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 = " + p99);
+        assertEquals(1000, histogram.percentileMicros(100));
+    }
+}
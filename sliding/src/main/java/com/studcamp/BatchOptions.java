@@ -0,0 +1,64 @@
+package com.studcamp;
+
+// Настройки пакетной обработки processMazeFiles. По умолчанию - один поток,
+// текстовый результат, без кэша, без карт выходов и без счётчиков
+public class BatchOptions {
+
+    private int parallelism = 1;
+    private ResultFormat format = ResultFormat.TEXT;
+    private ResultCache cache;
+    private boolean exits;
+    private boolean stats;
+
+    public static BatchOptions defaults() {
+        return new BatchOptions();
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    public BatchOptions parallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public ResultFormat format() {
+        return format;
+    }
+
+    public BatchOptions format(ResultFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    public ResultCache cache() {
+        return cache;
+    }
+
+    // Кэш результатов по содержимому лабиринтов; null - решать каждый файл заново
+    public BatchOptions cache(ResultCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public boolean exits() {
+        return exits;
+    }
+
+    // Рядом с результатом писать maze*_exits.txt - ближайший выход для каждой клетки
+    public BatchOptions exits(boolean exits) {
+        this.exits = exits;
+        return this;
+    }
+
+    public boolean stats() {
+        return stats;
+    }
+
+    // Замерять фазы каждого файла и печатать в конце пакета итоговую строку Stats
+    public BatchOptions stats(boolean stats) {
+        this.stats = stats;
+        return this;
+    }
+}
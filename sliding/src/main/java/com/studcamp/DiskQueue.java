@@ -0,0 +1,84 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Очередь FIFO из long в файле: в памяти только буфер записи в хвост
+// и буфер чтения с головы. Файл растёт на 8 байт на каждый push. Не потокобезопасна
+final class DiskQueue implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer tail = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer head = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+    // Байт записано в файл и прочитано из него
+    private long written;
+    private long read;
+    private long size;
+
+    DiskQueue(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void push(long value) throws IOException {
+        if (!tail.hasRemaining()) {
+            flush();
+        }
+        tail.putLong(value);
+        size++;
+    }
+
+    long pop() throws IOException {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        if (!head.hasRemaining()) {
+            refill();
+        }
+        size--;
+        return head.getLong();
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void flush() throws IOException {
+        tail.flip();
+        while (tail.hasRemaining()) {
+            written += channel.write(tail, written);
+        }
+        tail.clear();
+    }
+
+    private void refill() throws IOException {
+        // Всё записанное в файл уже прочитано - голова догнала буфер хвоста
+        if (read == written) {
+            flush();
+        }
+        head.clear();
+        head.limit((int) Math.min(head.capacity(), written - read));
+        while (head.hasRemaining()) {
+            int n = channel.read(head, read);
+            if (n < 0) {
+                throw new IOException("Unexpected end of queue file " + path);
+            }
+            read += n;
+        }
+        head.flip();
+    }
+}
@@ -0,0 +1,129 @@
+package com.studcamp;
+
+// Результат solvePuzzle: число свайпов до ближайшей цели для каждой клетки в плоском int[].
+// Строковые метки ("X", "0", "∞", число) получаются на лету, без матрицы строк
+public class DistanceMap {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final MazeGrid grid;
+    private final int[] distances;
+    private final boolean hasTarget;
+    // Необязательная карта выходов: номер ближайшей '=' для клетки и клетки самих выходов
+    private final int[] exits;
+    private final int[] targets;
+    // Счётчики решения, если их просили
+    private SolveStats stats;
+
+    DistanceMap(MazeGrid grid, int[] distances) {
+        this(grid, distances, null, null);
+    }
+
+    DistanceMap(MazeGrid grid, int[] distances, int[] exits, int[] targets) {
+        this.grid = grid;
+        this.distances = distances;
+        this.hasTarget = true;
+        this.exits = exits;
+        this.targets = targets;
+    }
+
+    // Лабиринт без цели: все проходимые клетки недостижимы
+    private DistanceMap(MazeGrid grid) {
+        this.grid = grid;
+        this.distances = null;
+        this.hasTarget = false;
+        this.exits = null;
+        this.targets = null;
+    }
+
+    static DistanceMap withoutTarget(MazeGrid grid) {
+        return new DistanceMap(grid);
+    }
+
+    // Счётчики, переданные в solvePuzzle(grid, stats), или null
+    public SolveStats stats() {
+        return stats;
+    }
+
+    DistanceMap withStats(SolveStats stats) {
+        this.stats = stats;
+        return this;
+    }
+
+    public MazeGrid grid() {
+        return grid;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    // Посчитана ли карта выходов (solvePuzzle с withExits). Без цели выходов нет,
+    // но карта считается посчитанной - все клетки без выхода
+    public boolean hasExits() {
+        return exits != null || !hasTarget;
+    }
+
+    // Номер ближайшего выхода - индекс клетки '=' в порядке обхода по строкам,
+    // или -1 для стен и клеток, откуда выход недостижим
+    public int exitNumber(int cell) {
+        if (!hasExits()) {
+            throw new IllegalStateException("Result was solved without exits");
+        }
+        return hasTarget ? exits[cell] : -1;
+    }
+
+    // Упакованный индекс клетки ближайшего выхода или -1
+    public int nearestExit(int cell) {
+        int exit = exitNumber(cell);
+        return exit == -1 ? -1 : targets[exit];
+    }
+
+    // Массив расстояний для IncrementalSolver; null, если цели нет
+    int[] distances() {
+        return distances;
+    }
+
+    // Число свайпов от клетки до ближайшей цели или UNREACHABLE
+    public int distance(int cell) {
+        return hasTarget ? distances[cell] : UNREACHABLE;
+    }
+
+    // Метка клетки в формате _result.txt. Без цели стены и '=' помечаются "0",
+    // с целью стены - "X", клетки '=' - "0"
+    public String label(int cell) {
+        byte code = grid.at(cell);
+        if (!hasTarget) {
+            return code == MazeGrid.WALL || code == MazeGrid.TARGET ? "0" : "∞";
+        }
+        if (code == MazeGrid.WALL) {
+            return "X";
+        }
+        if (code == MazeGrid.TARGET) {
+            return "0";
+        }
+        int distance = distances[cell];
+        return distance == UNREACHABLE ? "∞" : String.valueOf(distance);
+    }
+
+    // То же, что label, но число дописывается без промежуточной строки
+    public void appendLabel(StringBuilder sb, int cell) {
+        byte code = grid.at(cell);
+        if (hasTarget && code != MazeGrid.WALL && code != MazeGrid.TARGET && distances[cell] != UNREACHABLE) {
+            sb.append(distances[cell]);
+        } else {
+            sb.append(label(cell));
+        }
+    }
+
+    // Обёртка для совместимости со старым API String[][]
+    public String[][] toStrings() {
+        String[][] result = new String[grid.rows()][grid.cols()];
+        for (int i = 0; i < grid.rows(); i++) {
+            for (int j = 0; j < grid.cols(); j++) {
+                result[i][j] = label(grid.cell(i, j));
+            }
+        }
+        return result;
+    }
+}
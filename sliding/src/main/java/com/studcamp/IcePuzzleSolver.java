@@ -1,214 +1,209 @@
 package com.studcamp;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Queue;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class IcePuzzleSolver {
     
-    static class Cell {
-        int x, y, distance;
-        
-        Cell(int x, int y, int distance) {
-            this.x = x;
-            this.y = y;
-            this.distance = distance;
-        }
-    }
+    // Версия результатов решателя - входит в ключ ResultCache.
+    // Увеличивать при любом изменении расстояний или отчёта
+    public static final String SOLVER_VERSION = "2";
     
     private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
     
+    // Совместимая обёртка над solvePuzzle(MazeGrid) для строкового формата
     public static String[][] solvePuzzle(String[][] grid) {
-        int n = grid.length;
-        int m = grid[0].length;
-        
-        // Находим целевую позицию
-        int targetX = -1, targetY = -1;
-        
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < m; j++) {
-                if ("=".equals(grid[i][j])) {
-                    targetX = i;
-                    targetY = j;
-                }
-            }
+        return solvePuzzle(MazeGrid.of(grid)).toStrings();
+    }
+    
+    public static DistanceMap solvePuzzle(MazeGrid grid) {
+        return solvePuzzle(grid, false);
+    }
+    
+    // withExits - дополнительно запомнить, к какому выходу '=' ведёт путь из каждой клетки
+    public static DistanceMap solvePuzzle(MazeGrid grid, boolean withExits) {
+        if (grid.target() == -1) {
+            System.out.println("Warning: No target found (=)");
         }
-        
-        if (targetX == -1) {
+        return solve(grid, withExits);
+    }
+    
+    // solvePuzzle со счётчиками: они добавляются в stats, и результат их возвращает
+    // в stats(). Один объект можно передавать в несколько решений - счётчики сложатся
+    public static DistanceMap solvePuzzle(MazeGrid grid, SolveStats stats) {
+        if (grid.target() == -1) {
             System.out.println("Warning: No target found (=)");
-            return createEmptyResult(grid);
         }
-        
-        // Матрица расстояний - инициализируем бесконечностью
-        int[][] distances = new int[n][m];
-        for (int i = 0; i < n; i++) {
-            Arrays.fill(distances[i], Integer.MAX_VALUE);
+        long searchStart = System.nanoTime();
+        long allocatedBefore = SolveStats.threadAllocatedBytes();
+        DistanceMap result = solve(grid, false, stats);
+        stats.allocatedBytes += SolveStats.threadAllocatedBytes() - allocatedBefore;
+        stats.searchNanos += System.nanoTime() - searchStart;
+        return result.withStats(stats);
+    }
+    
+    // Те же расстояния, что у solvePuzzle, но уровни BFS раскрываются параллельно
+    // в pool - для лабиринтов в десятки миллионов клеток. Карту выходов не строит
+    public static DistanceMap solvePuzzle(MazeGrid grid, ForkJoinPool pool) {
+        if (grid.target() == -1) {
+            System.out.println("Warning: No target found (=)");
+        }
+        return ParallelBfs.solve(grid, pool);
+    }
+    
+    // solvePuzzle без печати предупреждения - пакетная обработка пишет его в отчёт файла,
+    // IncrementalSolver пересчитывает через него поле целиком, сервер отвечает им клиентам
+    public static DistanceMap solve(MazeGrid grid) {
+        return solve(grid, false);
+    }
+    
+    static DistanceMap solve(MazeGrid grid, boolean withExits) {
+        return solve(grid, withExits, null);
+    }
+    
+    // Один BFS от всех клеток '=' сразу: все выходы - источники уровня 0,
+    // расстояние клетки - число свайпов до ближайшего из них.
+    // stats - куда добавить счётчики поиска, или null. Без stats и без записи
+    // SolveEvent лучи ничего не считают
+    static DistanceMap solve(MazeGrid grid, boolean withExits, SolveStats stats) {
+        // Без цели поиска нет - ни событие, ни счётчики решение не учитывают
+        if (grid.target() == -1) {
+            return DistanceMap.withoutTarget(grid);
+        }
+        SolveEvent event = new SolveEvent();
+        SolveStats counters = stats;
+        if (counters == null && event.isEnabled()) {
+            counters = new SolveStats();
+        }
+        // counters может копить несколько решений - событие получает только разницу
+        long generatedBefore = 0;
+        long duplicatesBefore = 0;
+        long slideStepsBefore = 0;
+        if (counters != null) {
+            counters.solves++;
+            counters.cells += grid.size();
+            generatedBefore = counters.generated;
+            duplicatesBefore = counters.duplicates;
+            slideStepsBefore = counters.slideSteps;
+            event.begin();
+        }
+        // Расстояния по упакованным индексам клеток - инициализируем бесконечностью.
+        // Клетка посещена, если расстояние уже не бесконечно
+        int[] distances = new int[grid.size()];
+        Arrays.fill(distances, DistanceMap.UNREACHABLE);
+        // Номер выхода для каждой клетки, -1 - выхода нет
+        int[] exits = null;
+        if (withExits) {
+            exits = new int[grid.size()];
+            Arrays.fill(exits, -1);
         }
-        distances[targetX][targetY] = 0;
-        
-        // Очередь для BFS
-        Queue<Cell> queue = new LinkedList<>();
-        queue.offer(new Cell(targetX, targetY, 0));
         
-        // Множество посещенных клеток
-        boolean[][] visited = new boolean[n][m];
-        visited[targetX][targetY] = true;
+        // Очередь BFS - массив индексов: каждая клетка попадает в неё не больше одного раза.
+        // Выходы кладутся первыми в порядке обхода по строкам, их номер - позиция в очереди
+        int[] queue = new int[grid.size()];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.at(cell) == MazeGrid.TARGET) {
+                distances[cell] = 0;
+                if (exits != null) {
+                    exits[cell] = tail;
+                }
+                queue[tail++] = cell;
+            }
+        }
+        int[] targets = exits != null ? Arrays.copyOf(queue, tail) : null;
+        int peakFrontier = tail;
         
-        while (!queue.isEmpty()) {
-            Cell current = queue.poll();
-            int x = current.x;
-            int y = current.y;
-            int dist = current.distance;
+        while (head < tail) {
+            int current = queue[head++];
             
             // Для текущей клетки ищем все клетки, откуда можно прийти ОДНИМ свайпом
             // Это клетки, от которых можно скользить и остановиться в текущей позиции
             for (int[] dir : DIRECTIONS) {
-                // Находим все возможные стартовые позиции для свайпа в направлении dir,
-                // которые заканчиваются в (x, y)
-                findSlideStarts(x, y, dir, grid, distances, visited, queue, dist);
+                tail = findSlideStarts(current, dir, grid, distances, exits, queue, tail, counters);
             }
+            peakFrontier = Math.max(peakFrontier, tail - head);
         }
         
-        // Создаем результирующую матрицу
-        return createResultGrid(grid, distances);
-    }
-    
-    private static void findSlideStarts(int endX, int endY, int[] dir, String[][] grid, 
-                                      int[][] distances, boolean[][] visited, 
-                                      Queue<Cell> queue, int currentDist) {
-        int n = grid.length;
-        int m = grid[0].length;
-        
-        // Идем в ПРОТИВОПОЛОЖНОМ направлении от конечной точки
-        // чтобы найти, откуда можно начать скольжение
-        int reverseDirX = -dir[0];
-        int reverseDirY = -dir[1];
-        
-        // Начинаем с клетки перед конечной в обратном направлении
-        int checkX = endX + reverseDirX;
-        int checkY = endY + reverseDirY;
-        
-        // Если эта клетка вне границ или препятствие - нельзя начать скольжение отсюда
-        if (checkX < 0 || checkX >= n || checkY < 0 || checkY >= m || 
-            "0".equals(grid[checkX][checkY])) {
-            return;
-        }
-        
-        // Теперь идем назад по траектории скольжения, собирая все возможные стартовые позиции
-        int currentX = checkX;
-        int currentY = checkY;
-        
-        while (true) {
-            // Проверяем, может ли скольжение из (currentX, currentY) в направлении dir
-            // закончиться в (endX, endY)
-            if (isValidSlideToTarget(currentX, currentY, dir, endX, endY, grid)) {
-                // Нашли валидную стартовую позицию
-                int newDist = currentDist + 1;
-                
-                if (newDist < distances[currentX][currentY]) {
-                    distances[currentX][currentY] = newDist;
-                    if (!visited[currentX][currentY]) {
-                        visited[currentX][currentY] = true;
-                        queue.offer(new Cell(currentX, currentY, newDist));
-                    }
-                }
+        if (counters != null) {
+            counters.expanded += head;
+            counters.visited += tail;
+            counters.peakFrontier = Math.max(counters.peakFrontier, peakFrontier);
+            event.end();
+            if (event.shouldCommit()) {
+                event.cells = grid.size();
+                event.expanded = head;
+                event.generated = counters.generated - generatedBefore;
+                event.duplicates = counters.duplicates - duplicatesBefore;
+                event.slideSteps = counters.slideSteps - slideStepsBefore;
+                event.peakFrontier = peakFrontier;
+                event.visited = tail;
+                event.commit();
             }
-            
-            // Двигаемся дальше в обратном направлении
-            int nextX = currentX + reverseDirX;
-            int nextY = currentY + reverseDirY;
-            
-            // Проверяем границы и препятствия
-            if (nextX < 0 || nextX >= n || nextY < 0 || nextY >= m || 
-                "0".equals(grid[nextX][nextY])) {
-                break;
-            }
-            
-            currentX = nextX;
-            currentY = nextY;
         }
+        return new DistanceMap(grid, distances, exits, targets);
     }
     
-    private static boolean isValidSlideToTarget(int startX, int startY, int[] dir, 
-                                              int targetX, int targetY, String[][] grid) {
-        int n = grid.length;
-        int m = grid[0].length;
+    // Скольжение из любой клетки обратного луча проходит через конечную клетку,
+    // поэтому подходят все клетки луча до стены. Луч обрывается и на клетке
+    // с расстоянием не больше текущего: её собственный луч в том же направлении
+    // уже разметил всё, что лежит за ней. Все клетки уровня d размечены раньше,
+    // чем первая из них покидает очередь, так что каждая клетка проходится
+    // в каждом направлении O(1) раз - весь поиск линеен по числу клеток.
+    // Счётчики луча выводятся из его длины после цикла, сам цикл их не трогает.
+    // Возвращает новый хвост очереди
+    private static int findSlideStarts(int end, int[] dir, MazeGrid grid, int[] distances,
+                                       int[] exits, int[] queue, int tail, SolveStats stats) {
+        int n = grid.rows();
+        int m = grid.cols();
+        int dist = distances[end];
+        int firstNew = tail;
         
-        int currentX = startX;
-        int currentY = startY;
+        // Идем в ПРОТИВОПОЛОЖНОМ направлении от конечной точки
+        int currentX = end / m - dir[0];
+        int currentY = end % m - dir[1];
         
-        // Моделируем скольжение от стартовой позиции
-        while (true) {
-            // Двигаемся в направлении скольжения
-            int nextX = currentX + dir[0];
-            int nextY = currentY + dir[1];
-            
-            // Проверяем границы
-            if (nextX < 0 || nextX >= n || nextY < 0 || nextY >= m) {
-                // Достигли границы - проверяем, остановились ли мы на цели
-                return (currentX == targetX && currentY == targetY);
-            }
-            
-            // Проверяем препятствия
-            if ("0".equals(grid[nextX][nextY])) {
-                // Достигли препятствия - проверяем, остановились ли мы на цели
-                return (currentX == targetX && currentY == targetY);
-            }
-            
-            // Переходим к следующей клетке
-            currentX = nextX;
-            currentY = nextY;
-            
-            // Если достигли целевой позиции - проверяем, можем ли здесь остановиться
-            if (currentX == targetX && currentY == targetY) {
-                // Можем остановиться на цели
-                return true;
+        while (currentX >= 0 && currentX < n && currentY >= 0 && currentY < m) {
+            int current = grid.cell(currentX, currentY);
+            if (grid.isWall(current) || distances[current] <= dist) {
+                break;
             }
-            
-            
-        }
-    }
-    
-    private static String[][] createEmptyResult(String[][] grid) {
-        String[][] result = new String[grid.length][grid[0].length];
-        for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[i].length; j++) {
-                if ("0".equals(grid[i][j]) || "=".equals(grid[i][j])) {
-                    result[i][j] = "0";
-                } else {
-                    result[i][j] = "∞";
+            if (distances[current] == DistanceMap.UNREACHABLE) {
+                distances[current] = dist + 1;
+                if (exits != null) {
+                    exits[current] = exits[end];
                 }
+                queue[tail++] = current;
             }
+            currentX -= dir[0];
+            currentY -= dir[1];
         }
-        return result;
-    }
-    
-    private static String[][] createResultGrid(String[][] grid, int[][] distances) {
-        int n = grid.length;
-        int m = grid[0].length;
-        String[][] result = new String[n][m];
-        
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < m; j++) {
-                if ("0".equals(grid[i][j])) {
-                    result[i][j] = "X";
-                } else if ("=".equals(grid[i][j])) {
-                    result[i][j] = "0";
-                } else if (distances[i][j] == Integer.MAX_VALUE) {
-                    result[i][j] = "∞";
-                } else {
-                    result[i][j] = String.valueOf(distances[i][j]);
-                }
-            }
+        if (stats != null) {
+            // Клетки луча до места обрыва; клетка обрыва внутри поля тоже просмотрена
+            int passed = Math.abs(end / m - currentX) + Math.abs(end % m - currentY) - 1;
+            boolean inside = currentX >= 0 && currentX < n && currentY >= 0 && currentY < m;
+            stats.generated += passed;
+            stats.duplicates += passed - (tail - firstNew);
+            stats.slideSteps += passed + (inside ? 1 : 0);
         }
-        return result;
+        return tail;
     }
     
     public static String[][] parseInput(String input) {
@@ -243,17 +238,144 @@ public class IcePuzzleSolver {
         return sb.toString();
     }
     
+    // То же, что formatOutput(String[][]), но метки берутся прямо из компактного результата
+    public static String formatOutput(DistanceMap result) {
+        MazeGrid grid = result.grid();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < grid.rows(); i++) {
+            appendRow(sb, result, i);
+            if (i < grid.rows() - 1) {
+                sb.append("\n");
+            }
+        }
+        return sb.toString();
+    }
+    
+    // Потоковая запись результата в формате formatOutput: строки форматируются
+    // и уходят в файл по одной, полный текст в памяти не собирается
+    public static void writeOutput(DistanceMap result, Path path) throws IOException {
+        MazeGrid grid = result.grid();
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < grid.rows(); i++) {
+                row.setLength(0);
+                appendRow(row, result, i);
+                if (i < grid.rows() - 1) {
+                    row.append('\n');
+                }
+                writer.append(row);
+            }
+        }
+    }
+    
+    // Карта выходов в том же виде, что _result.txt: для каждой клетки номер
+    // ближайшего выхода '=' (с 1, по порядку обхода по строкам), "X" - стена,
+    // "∞" - клетка, из которой выход недостижим
+    public static void writeExits(DistanceMap result, Path path) throws IOException {
+        if (!result.hasExits()) {
+            throw new IllegalArgumentException("Result was solved without exits");
+        }
+        MazeGrid grid = result.grid();
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < grid.rows(); i++) {
+                row.setLength(0);
+                for (int j = 0; j < grid.cols(); j++) {
+                    int cell = grid.cell(i, j);
+                    int exit = result.exitNumber(cell);
+                    if (grid.isWall(cell)) {
+                        row.append('X');
+                    } else if (exit == -1) {
+                        row.append('∞');
+                    } else {
+                        row.append(exit + 1);
+                    }
+                    if (j < grid.cols() - 1) {
+                        row.append(' ');
+                    }
+                }
+                if (i < grid.rows() - 1) {
+                    row.append('\n');
+                }
+                writer.append(row);
+            }
+        }
+    }
+    
+    private static void appendRow(StringBuilder sb, DistanceMap result, int row) {
+        MazeGrid grid = result.grid();
+        for (int j = 0; j < grid.cols(); j++) {
+            result.appendLabel(sb, grid.cell(row, j));
+            if (j < grid.cols() - 1) {
+                sb.append(" ");
+            }
+        }
+    }
+    
+    // Отчёт по одному файлу пакета: строки для консоли и ошибка, если была.
+    // Собирается в рабочем потоке, печатается в порядке имён файлов
+    static class MazeReport {
+        final List<String> lines = new ArrayList<>();
+        Exception error;
+        long cells;
+        // Счётчики решения и фаз; null - файл из кэша или счётчики не просили
+        SolveStats stats;
+        
+        void line(String text) {
+            lines.add(text);
+        }
+        
+        void print() {
+            for (String line : lines) {
+                System.out.println(line);
+            }
+            if (error != null) {
+                error.printStackTrace();
+            }
+            System.out.println();
+        }
+    }
+    
     public static void processMazeFiles() {
+        processMazeFiles(1);
+    }
+    
+    public static void processMazeFiles(int parallelism) {
+        processMazeFiles(parallelism, ResultFormat.TEXT);
+    }
+    
+    public static void processMazeFiles(int parallelism, ResultFormat format) {
+        processMazeFiles(BatchOptions.defaults().parallelism(parallelism).format(format));
+    }
+    
+    // Пакетная обработка maze*.txt в текущем каталоге на options.parallelism() потоках.
+    // Чтение, решение и запись файла идут в одной задаче, так что ввод-вывод одних
+    // файлов перекрывается с решением других. В работе не больше 2 * parallelism
+    // файлов одновременно, отчёты печатаются строго по порядку имён
+    public static void processMazeFiles(BatchOptions options) {
+        processMazeFiles(Paths.get("."), options);
+    }
+    
+    // То же для каталога dir; результаты пишутся рядом с лабиринтами
+    static void processMazeFiles(Path dir, BatchOptions options) {
+        int parallelism = options.parallelism();
+        ResultFormat format = options.format();
+        // Кэш хранит только файл результата, поэтому карты выходов всегда считаются заново
+        ResultCache cache = options.exits() ? null : options.cache();
+        boolean exits = options.exits();
+        boolean stats = options.stats();
         try {
-            Path currentDir = Paths.get(".");
-            List<Path> mazeFiles = Files.list(currentDir)
-                    .filter(path -> {
-                        String fileName = path.getFileName().toString();
-                        return fileName.matches("maze.*\\.txt") && 
-                               !fileName.contains("_result");
-                    })
-                    .sorted()
-                    .collect(Collectors.toList());
+            List<Path> mazeFiles;
+            try (Stream<Path> files = Files.list(dir)) {
+                mazeFiles = files
+                        .filter(path -> {
+                            String fileName = path.getFileName().toString();
+                            return fileName.matches("maze.*\\.txt") && 
+                                   !fileName.contains("_result");
+                        })
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
             
             if (mazeFiles.isEmpty()) {
                 System.out.println("No maze*.txt files found in current directory");
@@ -266,29 +388,49 @@ public class IcePuzzleSolver {
             }
             System.out.println();
             
-            for (Path mazeFile : mazeFiles) {
-                System.out.println("Processing: " + mazeFile.getFileName());
-                
-                try {
-                    String content = Files.readString(mazeFile);
-                    String[][] grid = parseInput(content);
-                    String[][] result = solvePuzzle(grid);
-                    
-                    String inputFileName = mazeFile.getFileName().toString();
-                    String outputFileName = inputFileName.replace(".txt", "_result.txt");
-                    
-                    String output = formatOutput(result);
-                    Files.writeString(Paths.get(outputFileName), output);
-                    
-                    System.out.println("  Result saved to: " + outputFileName);
-                    findAndPrintStartDistance(grid, result, inputFileName);
-                    printReachabilityStats(result, inputFileName);
-                    
-                } catch (Exception e) {
-                    System.out.println("  Error processing file: " + e.getMessage());
-                    e.printStackTrace();
+            long started = System.nanoTime();
+            long cells = 0;
+            int failed = 0;
+            SolveStats total = new SolveStats();
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                Deque<Future<MazeReport>> window = new ArrayDeque<>();
+                int next = 0;
+                while (next < mazeFiles.size() || !window.isEmpty()) {
+                    while (next < mazeFiles.size() && window.size() < 2 * parallelism) {
+                        Path mazeFile = mazeFiles.get(next++);
+                        window.add(executor.submit(() -> processMazeFile(mazeFile, format, cache, exits, stats)));
+                    }
+                    MazeReport report = window.poll().get();
+                    report.print();
+                    cells += report.cells;
+                    if (report.stats != null) {
+                        total.add(report.stats);
+                    }
+                    if (report.error != null) {
+                        failed++;
+                    }
                 }
-                System.out.println();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("Batch interrupted");
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Maze worker failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            double seconds = Math.max(System.nanoTime() - started, 1) / 1e9;
+            System.out.printf(Locale.ROOT, "Processed %d files (%d failed) in %.3f s on %d threads: %.1f files/sec, %.0f cells/sec%n",
+                              mazeFiles.size(), failed, seconds, parallelism,
+                              mazeFiles.size() / seconds, cells / seconds);
+            if (cache != null) {
+                System.out.printf(Locale.ROOT, "Cache: %d hits, %d misses, %d evicted, %.1f MB stored%n",
+                                  cache.hits(), cache.misses(), cache.evictions(), cache.totalBytes() / 1048576.0);
+            }
+            if (stats) {
+                System.out.println("Stats: " + total);
             }
             
         } catch (IOException e) {
@@ -297,41 +439,132 @@ public class IcePuzzleSolver {
         }
     }
     
-    private static void findAndPrintStartDistance(String[][] grid, String[][] result, String fileName) {
-        for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[i].length; j++) {
-                if ("+".equals(grid[i][j])) {
-                    String dist = result[i][j];
-                    System.out.println("  Start to target distance: " + 
-                                     ("∞".equals(dist) ? "UNREACHABLE" : dist + " moves"));
-                    return;
+    // stats - замерить фазы и собрать счётчики в report.stats. То же делается,
+    // пока пишется MazeFileEvent; без обоих фазы не замеряются
+    static MazeReport processMazeFile(Path mazeFile, ResultFormat format, ResultCache cache,
+                                      boolean exits, boolean stats) {
+        MazeReport report = new MazeReport();
+        report.line("Processing: " + mazeFile.getFileName());
+        MazeFileEvent event = new MazeFileEvent();
+        SolveStats counters = stats || event.isEnabled() ? new SolveStats() : null;
+        event.begin();
+        
+        try {
+            String inputFileName = mazeFile.getFileName().toString();
+            String outputFileName = format.outputName(inputFileName);
+            Path output = mazeFile.resolveSibling(outputFileName);
+            
+            // Неизменённый лабиринт: результат и отчёт берутся из кэша
+            String key = cache != null ? ResultCache.key(mazeFile, format) : null;
+            ResultCache.Entry cached = cache != null ? cache.restore(key, output) : null;
+            if (cached != null) {
+                cached.lines.forEach(report::line);
+                report.cells = cached.cells;
+                commit(event, mazeFile, report.cells, null);
+                return report;
+            }
+            
+            long allocatedBefore = counters != null ? SolveStats.threadAllocatedBytes() : 0;
+            long phaseStart = counters != null ? System.nanoTime() : 0;
+            MazeGrid grid = MazeGrid.read(mazeFile);
+            if (grid.target() == -1) {
+                report.line("Warning: No target found (=)");
+            }
+            if (counters != null) {
+                long now = System.nanoTime();
+                counters.parseNanos = now - phaseStart;
+                phaseStart = now;
+            }
+            DistanceMap result = solve(grid, exits, counters);
+            if (counters != null) {
+                long now = System.nanoTime();
+                counters.searchNanos = now - phaseStart;
+                phaseStart = now;
+            }
+            
+            format.write(result, output);
+            
+            report.line("  Result saved to: " + outputFileName);
+            if (exits) {
+                String exitsFileName = inputFileName.replace(".txt", "_exits.txt");
+                writeExits(result, mazeFile.resolveSibling(exitsFileName));
+                report.line("  Exits saved to: " + exitsFileName);
+            }
+            report.line(startDistance(result));
+            report.line(reachabilityStats(result));
+            report.cells = grid.size();
+            if (counters != null) {
+                counters.formatNanos = System.nanoTime() - phaseStart;
+                counters.allocatedBytes = SolveStats.threadAllocatedBytes() - allocatedBefore;
+                report.stats = stats ? counters : null;
+                commit(event, mazeFile, report.cells, counters);
+            }
+            
+            if (cache != null) {
+                try {
+                    cache.store(key, report.cells, report.lines.subList(1, report.lines.size()), output);
+                } catch (IOException e) {
+                    // Кэш - только ускорение: результат уже записан, файл просто решится снова
                 }
             }
+            
+        } catch (Exception e) {
+            report.line("  Error processing file: " + e.getMessage());
+            report.error = e;
         }
-        System.out.println("  Warning: No start position (+) found");
+        return report;
     }
     
-    private static void printReachabilityStats(String[][] result, String fileName) {
+    private static void commit(MazeFileEvent event, Path mazeFile, long cells, SolveStats counters) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.file = mazeFile.getFileName().toString();
+        event.cells = cells;
+        event.cached = counters == null;
+        if (counters != null) {
+            event.parseNanos = counters.parseNanos;
+            event.searchNanos = counters.searchNanos;
+            event.formatNanos = counters.formatNanos;
+            event.allocatedBytes = counters.allocatedBytes;
+        }
+        event.commit();
+    }
+    
+    private static String startDistance(DistanceMap result) {
+        int start = result.grid().start();
+        if (start == -1) {
+            return "  Warning: No start position (+) found";
+        }
+        String dist = result.label(start);
+        return "  Start to target distance: " + 
+               ("∞".equals(dist) ? "UNREACHABLE" : dist + " moves");
+    }
+    
+    private static String reachabilityStats(DistanceMap result) {
         int totalCells = 0;
         int reachableCells = 0;
         int unreachableCells = 0;
         int obstacles = 0;
         
-        for (String[] row : result) {
-            for (String cell : row) {
-                totalCells++;
-                if ("∞".equals(cell)) {
-                    unreachableCells++;
-                } else if ("0".equals(cell)) {
-                    obstacles++;
-                } else {
-                    reachableCells++;
-                }
+        MazeGrid grid = result.grid();
+        for (int cell = 0; cell < grid.size(); cell++) {
+            totalCells++;
+            // Классы меток result.label: "∞", "0" (цель, а без цели ещё и стены),
+            // остальное - в том числе стены "X" - считается достижимым
+            byte code = grid.at(cell);
+            if (code == MazeGrid.TARGET || (!result.hasTarget() && code == MazeGrid.WALL)) {
+                obstacles++;
+            } else if (code != MazeGrid.WALL && result.distance(cell) == DistanceMap.UNREACHABLE) {
+                unreachableCells++;
+            } else {
+                reachableCells++;
             }
         }
         
-        System.out.println("  Reachability: " + reachableCells + " reachable, " + 
-                         unreachableCells + " unreachable, " + obstacles + " obstacles/goal");
+        return "  Reachability: " + reachableCells + " reachable, " + 
+               unreachableCells + " unreachable, " + obstacles + " obstacles/goal";
     }
     
 }
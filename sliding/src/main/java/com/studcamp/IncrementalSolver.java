@@ -0,0 +1,342 @@
+package com.studcamp;
+
+import java.util.Arrays;
+
+// Поле расстояний, которое чинится после правок стен вместо полного BFS.
+// Держит свою копию сетки; result() - живое представление, оно меняется
+// при следующем update.
+//
+// Граф тот же, что у solvePuzzle: из клетки можно попасть в любую клетку
+// её строки или столбца до ближайшей стены. Правки применяются в два этапа:
+// 1. Новые стены только удаляют рёбра, расстояния могут лишь вырасти.
+//    По уровням старого поля ищутся клетки, потерявшие опору - соседа
+//    на расстоянии d - 1, который сам не затронут. Остальные клетки
+//    сохраняют расстояние, затронутые получают его заново от границы.
+// 2. Снятые стены только добавляют рёбра, расстояния могут лишь уменьшиться.
+//    Клетки объединённых отрезков становятся источниками, уменьшение
+//    распространяется обычной волной.
+// Правка одной из целей или слишком большая затронутая область - полный пересчёт
+public class IncrementalSolver {
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int INF = DistanceMap.UNREACHABLE;
+
+    // Состояние клетки во время одной правки
+    private static final byte QUEUED = 1;
+    private static final byte AFFECTED = 2;
+
+    private final MazeGrid grid;
+    private int[] distances;
+    private DistanceMap result;
+    // Метки состояний и список помеченных клеток для их сброса
+    private final byte[] state;
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    public IncrementalSolver(MazeGrid grid) {
+        this.grid = grid.copy();
+        this.state = new byte[grid.size()];
+        recompute();
+    }
+
+    public MazeGrid grid() {
+        return grid;
+    }
+
+    public DistanceMap result() {
+        return result;
+    }
+
+    // Правки - упакованные индексы клеток. Возвращает false, если пришлось
+    // пересчитать поле целиком
+    public boolean update(int[] addedWalls, int[] removedWalls) {
+        boolean incremental = distances != null;
+        for (int cell : addedWalls) {
+            if (grid.at(cell) == MazeGrid.TARGET) {
+                incremental = false;
+            }
+        }
+        if (!incremental) {
+            applyWalls(addedWalls, removedWalls);
+            recompute();
+            return false;
+        }
+
+        boolean repaired = addWalls(addedWalls);
+        if (repaired) {
+            removeWalls(removedWalls);
+            return true;
+        }
+        applyWalls(new int[0], removedWalls);
+        recompute();
+        return false;
+    }
+
+    private void applyWalls(int[] addedWalls, int[] removedWalls) {
+        for (int cell : addedWalls) {
+            grid.set(cell, MazeGrid.WALL);
+        }
+        for (int cell : removedWalls) {
+            if (grid.isWall(cell)) {
+                grid.set(cell, MazeGrid.FREE);
+            }
+        }
+    }
+
+    private void recompute() {
+        result = IcePuzzleSolver.solve(grid);
+        distances = result.distances();
+    }
+
+    // Этап 1. false - затронута слишком большая часть поля, стены уже стоят,
+    // поле нужно пересчитать целиком
+    private boolean addWalls(int[] walls) {
+        LevelQueue candidates = new LevelQueue();
+        walls = changed(walls, false);
+        for (int wall : walls) {
+            grid.set(wall, MazeGrid.WALL);
+            distances[wall] = INF;
+        }
+        // Клетки отрезков, разрезанных новыми стенами, теряют соседей
+        for (int wall : walls) {
+            for (int[] dir : DIRECTIONS) {
+                int x = wall / grid.cols() + dir[0];
+                int y = wall % grid.cols() + dir[1];
+                while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                    int cell = grid.cell(x, y);
+                    if (state[cell] == 0 && distances[cell] != INF && distances[cell] > 0) {
+                        mark(cell, QUEUED);
+                        candidates.seed(distances[cell], cell);
+                    }
+                    x += dir[0];
+                    y += dir[1];
+                }
+            }
+        }
+        candidates.sortSeeds();
+
+        // Уровни старого поля по возрастанию: опоры уровня d - 1 решены раньше уровня d
+        int[] affected = new int[16];
+        int affectedCount = 0;
+        int limit = Math.max(64, grid.size() / 8);
+        while (!candidates.isEmpty()) {
+            long top = candidates.pop();
+            int cell = (int) top;
+            int dist = (int) (top >>> 32);
+            if (hasSupport(cell, dist)) {
+                continue;
+            }
+            state[cell] = AFFECTED;
+            if (affectedCount == affected.length) {
+                affected = Arrays.copyOf(affected, affectedCount * 2);
+            }
+            affected[affectedCount++] = cell;
+            if (affectedCount > limit) {
+                clearMarks();
+                return false;
+            }
+            // Клетки следующего уровня, которые могли опираться на эту
+            for (int[] dir : DIRECTIONS) {
+                int x = cell / grid.cols() + dir[0];
+                int y = cell % grid.cols() + dir[1];
+                while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                    int next = grid.cell(x, y);
+                    if (state[next] == 0 && distances[next] == dist + 1) {
+                        mark(next, QUEUED);
+                        candidates.push(dist + 1, next);
+                    }
+                    x += dir[0];
+                    y += dir[1];
+                }
+            }
+        }
+
+        // Затронутые клетки получают расстояние от незатронутых соседей
+        for (int i = 0; i < affectedCount; i++) {
+            distances[affected[i]] = INF;
+        }
+        LevelQueue wave = new LevelQueue();
+        for (int i = 0; i < affectedCount; i++) {
+            int cell = affected[i];
+            int best = INF;
+            for (int[] dir : DIRECTIONS) {
+                int x = cell / grid.cols() + dir[0];
+                int y = cell % grid.cols() + dir[1];
+                while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                    int next = grid.cell(x, y);
+                    if (state[next] != AFFECTED && distances[next] != INF) {
+                        best = Math.min(best, distances[next] + 1);
+                    }
+                    x += dir[0];
+                    y += dir[1];
+                }
+            }
+            if (best != INF) {
+                distances[cell] = best;
+                wave.seed(best, cell);
+            }
+        }
+        clearMarks();
+        wave.sortSeeds();
+        propagate(wave);
+        return true;
+    }
+
+    // Опора - сосед уровня dist - 1, не попавший в затронутые
+    private boolean hasSupport(int cell, int dist) {
+        for (int[] dir : DIRECTIONS) {
+            int x = cell / grid.cols() + dir[0];
+            int y = cell % grid.cols() + dir[1];
+            while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                int next = grid.cell(x, y);
+                if (distances[next] == dist - 1 && state[next] != AFFECTED) {
+                    return true;
+                }
+                x += dir[0];
+                y += dir[1];
+            }
+        }
+        return false;
+    }
+
+    // Этап 2: все клетки объединённых отрезков - источники волны уменьшения
+    private void removeWalls(int[] walls) {
+        walls = changed(walls, true);
+        for (int wall : walls) {
+            grid.set(wall, MazeGrid.FREE);
+            distances[wall] = INF;
+        }
+        LevelQueue wave = new LevelQueue();
+        for (int wall : walls) {
+            for (int[] dir : DIRECTIONS) {
+                int x = wall / grid.cols() + dir[0];
+                int y = wall % grid.cols() + dir[1];
+                while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                    int cell = grid.cell(x, y);
+                    if (distances[cell] != INF) {
+                        distances[wall] = Math.min(distances[wall], distances[cell] + 1);
+                        if (state[cell] == 0) {
+                            mark(cell, QUEUED);
+                            wave.seed(distances[cell], cell);
+                        }
+                    }
+                    x += dir[0];
+                    y += dir[1];
+                }
+            }
+        }
+        for (int wall : walls) {
+            if (distances[wall] != INF && state[wall] == 0) {
+                mark(wall, QUEUED);
+                wave.seed(distances[wall], wall);
+            }
+        }
+        clearMarks();
+        wave.sortSeeds();
+        propagate(wave);
+    }
+
+    // Волна как в solvePuzzle: луч обрывается на клетке, чьё расстояние не больше
+    // текущего - её собственный луч покрывает всё за ней
+    private void propagate(LevelQueue wave) {
+        while (!wave.isEmpty()) {
+            long top = wave.pop();
+            int cell = (int) top;
+            int dist = (int) (top >>> 32);
+            if (distances[cell] != dist) {
+                continue;
+            }
+            for (int[] dir : DIRECTIONS) {
+                int x = cell / grid.cols() + dir[0];
+                int y = cell % grid.cols() + dir[1];
+                while (inside(x, y) && !grid.isWall(grid.cell(x, y))) {
+                    int next = grid.cell(x, y);
+                    if (distances[next] <= dist) {
+                        break;
+                    }
+                    if (distances[next] > dist + 1) {
+                        distances[next] = dist + 1;
+                        wave.push(dist + 1, next);
+                    }
+                    x += dir[0];
+                    y += dir[1];
+                }
+            }
+        }
+    }
+
+    // Только клетки, которые правка действительно меняет, без повторов:
+    // для снятия - нынешние стены, для установки - проходимые клетки
+    private int[] changed(int[] cells, boolean walls) {
+        int[] result = new int[cells.length];
+        int count = 0;
+        for (int cell : cells) {
+            if (grid.isWall(cell) == walls && state[cell] == 0) {
+                mark(cell, QUEUED);
+                result[count++] = cell;
+            }
+        }
+        clearMarks();
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean inside(int x, int y) {
+        return x >= 0 && x < grid.rows() && y >= 0 && y < grid.cols();
+    }
+
+    private void mark(int cell, byte value) {
+        state[cell] = value;
+        if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        }
+        touched[touchedCount++] = cell;
+    }
+
+    private void clearMarks() {
+        for (int i = 0; i < touchedCount; i++) {
+            state[touched[i]] = 0;
+        }
+        touchedCount = 0;
+    }
+
+    // Очередь по уровням для единичных рёбер: отсортированные источники
+    // сливаются с FIFO, куда кладутся только уровни не меньше уже снятых.
+    // Элемент - расстояние в старших 32 битах, клетка - в младших
+    private static final class LevelQueue {
+        private long[] seeds = new long[16];
+        private int seedCount;
+        private int seedHead;
+        private long[] fifo = new long[16];
+        private int head;
+        private int tail;
+
+        void seed(int dist, int cell) {
+            if (seedCount == seeds.length) {
+                seeds = Arrays.copyOf(seeds, seedCount * 2);
+            }
+            seeds[seedCount++] = ((long) dist << 32) | cell;
+        }
+
+        void sortSeeds() {
+            Arrays.sort(seeds, 0, seedCount);
+        }
+
+        void push(int dist, int cell) {
+            if (tail == fifo.length) {
+                fifo = Arrays.copyOf(fifo, tail * 2);
+            }
+            fifo[tail++] = ((long) dist << 32) | cell;
+        }
+
+        boolean isEmpty() {
+            return seedHead == seedCount && head == tail;
+        }
+
+        long pop() {
+            if (head == tail || (seedHead < seedCount && seeds[seedHead] <= fifo[head])) {
+                return seeds[seedHead++];
+            }
+            return fifo[head++];
+        }
+    }
+}
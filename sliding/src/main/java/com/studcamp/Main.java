@@ -1,11 +1,43 @@
 package com.studcamp;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
 public class Main {
     public static void main(String[] args) {
         System.out.println("Ice Puzzle Solver");
         System.out.println("Looking for maze*.txt files in current directory...\n");
         
-        IcePuzzleSolver.processMazeFiles();
+        // Необязательные аргументы: число потоков пакетной обработки (по умолчанию по числу ядер),
+        // формат результата - text, binary или binary_compressed,
+        // размер кэша результатов в МБ - по умолчанию 0, кэш выключен; при размере больше 0
+        // результаты сохраняются в каталоге .maze-cache текущего каталога и берутся оттуда
+        // при повторном запуске на тех же лабиринтах (например: java Main 8 text 1024),
+        // затем флаги: exits - писать рядом карты ближайших выходов,
+        // stats - печатать итоговые счётчики поиска и время фаз
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0])
+                                          : Runtime.getRuntime().availableProcessors();
+        ResultFormat format = args.length > 1 ? ResultFormat.valueOf(args[1].toUpperCase(Locale.ROOT))
+                                              : ResultFormat.TEXT;
+        long cacheMegabytes = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        boolean exits = false;
+        boolean stats = false;
+        for (int i = 3; i < args.length; i++) {
+            exits |= args[i].equalsIgnoreCase("exits");
+            stats |= args[i].equalsIgnoreCase("stats");
+        }
+        
+        BatchOptions options = BatchOptions.defaults().parallelism(parallelism).format(format)
+                                           .exits(exits).stats(stats);
+        if (cacheMegabytes > 0) {
+            try {
+                options.cache(ResultCache.open(Paths.get(".maze-cache"), cacheMegabytes << 20));
+            } catch (IOException e) {
+                System.out.println("Result cache disabled: " + e.getMessage());
+            }
+        }
+        IcePuzzleSolver.processMazeFiles(options);
         
         System.out.println("\nProcessing complete!");
     }
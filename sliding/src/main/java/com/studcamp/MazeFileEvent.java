@@ -0,0 +1,41 @@
+package com.studcamp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// JFR событие на каждый файл processMazeFiles: длительность всей обработки
+// и её фазы. Файл из кэша - без фаз, с cached = true
+@Name("ice.sliding.MazeFile")
+@Label("Maze File")
+@Category({"Ice Puzzle", "sliding"})
+@StackTrace(false)
+class MazeFileEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Cells")
+    long cells;
+
+    @Label("Cached")
+    boolean cached;
+
+    @Label("Parse")
+    @Timespan
+    long parseNanos;
+
+    @Label("Search")
+    @Timespan
+    long searchNanos;
+
+    @Label("Format")
+    @Timespan
+    long formatNanos;
+
+    @Label("Allocated Bytes")
+    long allocatedBytes;
+}
@@ -0,0 +1,146 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Компактное представление лабиринта: один байт на клетку в плоском массиве,
+// клетка адресуется упакованным индексом x * cols + y.
+// Строковый формат String[][] остаётся только как обёртка для совместимости
+public class MazeGrid {
+
+    public static final byte FREE = 0;
+    public static final byte WALL = 1;
+    public static final byte TARGET = 2;
+    public static final byte START = 3;
+
+    private final int rows;
+    private final int cols;
+    // Массив может быть длиннее rows * cols - запас потокового чтения
+    private final byte[] cells;
+
+    MazeGrid(int rows, int cols, byte[] cells) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+    }
+
+    // Разбор текста лабиринта без промежуточных строк на каждую клетку.
+    // Правила те же, что у IcePuzzleSolver.parseInput: строки обрезаются,
+    // пустые пропускаются, ширина лабиринта - по первой строке
+    public static MazeGrid parse(String input) {
+        String[] lines = input.trim().split("\n");
+        int rows = 0;
+        int cols = -1;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (!line.isEmpty()) {
+                lines[rows++] = line;
+                if (cols == -1) {
+                    cols = line.length();
+                }
+            }
+        }
+        if (rows == 0) {
+            throw new IllegalArgumentException("Maze is empty");
+        }
+
+        byte[] cells = new byte[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            String line = lines[i];
+            if (line.length() < cols) {
+                throw new IllegalArgumentException("Row " + i + " is shorter than the first row");
+            }
+            for (int j = 0; j < cols; j++) {
+                cells[i * cols + j] = code(line.charAt(j));
+            }
+        }
+        return new MazeGrid(rows, cols, cells);
+    }
+
+    // Потоковое чтение файла: пиковая память - сама сетка и буфер чтения
+    public static MazeGrid read(Path path) throws IOException {
+        return MazeReader.read(path);
+    }
+
+    // Обёртка для старого формата: по строке на клетку
+    public static MazeGrid of(String[][] grid) {
+        int rows = grid.length;
+        int cols = grid[0].length;
+        byte[] cells = new byte[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                String cell = grid[i][j];
+                cells[i * cols + j] = cell.length() == 1 ? code(cell.charAt(0)) : FREE;
+            }
+        }
+        return new MazeGrid(rows, cols, cells);
+    }
+
+    static byte code(char c) {
+        switch (c) {
+            case '0':
+                return WALL;
+            case '=':
+                return TARGET;
+            case '+':
+                return START;
+            default:
+                return FREE;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int size() {
+        return rows * cols;
+    }
+
+    public int cell(int x, int y) {
+        return x * cols + y;
+    }
+
+    public byte at(int cell) {
+        return cells[cell];
+    }
+
+    // Правка клетки - только для IncrementalSolver, который держит свою копию сетки
+    void set(int cell, byte code) {
+        cells[cell] = code;
+    }
+
+    MazeGrid copy() {
+        return new MazeGrid(rows, cols, Arrays.copyOf(cells, size()));
+    }
+
+    public boolean isWall(int cell) {
+        return cells[cell] == WALL;
+    }
+
+    // Последняя клетка '=' при обходе по строкам, или -1, если выходов нет.
+    // Поиск идёт сразу от всех '=', так что это лишь проверка наличия цели
+    public int target() {
+        for (int cell = size() - 1; cell >= 0; cell--) {
+            if (cells[cell] == TARGET) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    // Первая стартовая клетка '+' при обходе по строкам, или -1
+    public int start() {
+        for (int cell = 0; cell < size(); cell++) {
+            if (cells[cell] == START) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,172 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Потоковое чтение лабиринта из файла прямо в байтовую сетку MazeGrid.
+// Файл читается блоками через FileChannel, в памяти кроме сетки держится
+// только текущая строка. Правила разбора те же, что у MazeGrid.parse:
+// строки обрезаются, пустые пропускаются, ширина - по первой строке.
+// Текст считается UTF-8: не-ASCII символ - одна свободная клетка
+// (символ вне BMP - две, как в String).
+// Вместо сетки строки можно отдавать в RowSink - так TiledSolver раскладывает
+// лабиринт по тайлам на диске, не собирая его в куче
+class MazeReader {
+
+    // Приёмник разобранных строк: коды клеток MazeGrid, по строке за вызов
+    interface RowSink {
+        void start(int cols) throws IOException;
+
+        // codes переиспользуется между вызовами
+        void row(int index, byte[] codes) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Предел длины массива в JVM
+    private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final long fileSize;
+    private final RowSink sink;
+    private byte[] rowCodes;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private byte[] cells;
+    private int rows;
+    private int cols = -1;
+
+    private MazeReader(long fileSize, RowSink sink) {
+        this.fileSize = fileSize;
+        this.sink = sink;
+    }
+
+    static MazeGrid read(Path path) throws IOException {
+        MazeReader reader = parse(path, null);
+        return new MazeGrid(reader.rows, reader.cols, reader.cells);
+    }
+
+    // Строки файла уходят в sink; возвращает число строк
+    static int read(Path path, RowSink sink) throws IOException {
+        return parse(path, sink).rows;
+    }
+
+    private static MazeReader parse(Path path, RowSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MazeReader reader = new MazeReader(channel.size(), sink);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] bytes = buffer.array();
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    reader.accept(bytes[i]);
+                }
+                buffer.clear();
+            }
+            reader.finish();
+            return reader;
+        }
+    }
+
+    private void accept(byte b) throws IOException {
+        if (b == '\n') {
+            endLine();
+            return;
+        }
+        if (lineLength == line.length) {
+            byte[] grown = new byte[line.length * 2];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        line[lineLength++] = b;
+    }
+
+    private void finish() throws IOException {
+        endLine();
+        if (rows == 0) {
+            throw new IllegalArgumentException("Maze is empty");
+        }
+    }
+
+    private void endLine() throws IOException {
+        // trim(): по краям отбрасываются байты <= ' ', все они ASCII
+        int from = 0;
+        int to = lineLength;
+        lineLength = 0;
+        while (from < to && (line[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (line[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return;
+        }
+
+        if (sink != null) {
+            if (cols == -1) {
+                cols = charCount(from, to);
+                rowCodes = new byte[cols];
+                sink.start(cols);
+            }
+            decode(from, to, rowCodes, 0);
+            sink.row(rows++, rowCodes);
+            return;
+        }
+        if (cols == -1) {
+            cols = charCount(from, to);
+            // Оценка числа строк по размеру файла - чтобы сетка не перевыделялась
+            long expectedRows = fileSize / (to - from + 1) + 1;
+            cells = new byte[capacity(Math.min(expectedRows, MAX_CELLS / cols))];
+        }
+        if (cells.length < (long) (rows + 1) * cols) {
+            long grownRows = Math.max(rows + 1, Math.min(rows + (rows >> 1), MAX_CELLS / cols));
+            byte[] grown = new byte[capacity(grownRows)];
+            System.arraycopy(cells, 0, grown, 0, rows * cols);
+            cells = grown;
+        }
+
+        decode(from, to, cells, rows * cols);
+        rows++;
+    }
+
+    // Коды клеток строки line[from, to) в target с offset
+    private void decode(int from, int to, byte[] target, int offset) {
+        int column = 0;
+        for (int i = from; i < to && column < cols; i++) {
+            int b = line[i] & 0xFF;
+            if (b < 0x80) {
+                target[offset + column++] = MazeGrid.code((char) b);
+            } else if ((b & 0xC0) != 0x80) {
+                target[offset + column++] = MazeGrid.FREE;
+                if ((b & 0xF8) == 0xF0 && column < cols) {
+                    target[offset + column++] = MazeGrid.FREE;
+                }
+            }
+        }
+        if (column < cols) {
+            throw new IllegalArgumentException("Row " + rows + " is shorter than the first row");
+        }
+    }
+
+    private int capacity(long rowCount) {
+        long size = rowCount * cols;
+        if (size > MAX_CELLS) {
+            throw new IllegalArgumentException("Maze is too large: more than " + MAX_CELLS + " cells");
+        }
+        return (int) size;
+    }
+
+    // Число символов UTF-16 в строке UTF-8 - столько клеток в ней видит String
+    private int charCount(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int b = line[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                count += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+        }
+        return count;
+    }
+}
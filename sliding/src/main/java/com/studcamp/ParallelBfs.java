@@ -0,0 +1,173 @@
+package com.studcamp;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Поиск solve по уровням для очень больших лабиринтов: каждый уровень BFS
+// раскрывается параллельно в ForkJoinPool, уровни идут строго друг за другом.
+//
+// Фронт уровня - плотный int[] клеток. Он режется на куски по GRAIN клеток,
+// каждый кусок раскрывается своей задачей и собирает новые клетки в свой массив,
+// из них склеивается фронт следующего уровня. Новая клетка достаётся ровно одной
+// задаче - той, чей CAS в distances переведёт её из UNREACHABLE в d + 1.
+// Лучи обрываются по тому же правилу, что в solve: клетка с расстоянием
+// не больше d уже раскрыта со всем, что лежит за ней. Гонки здесь безвредны -
+// параллельно пишется только d + 1, а всё, что не больше d, записано
+// до границы уровня. Поэтому расстояния совпадают с solve бит в бит.
+// Узкие уровни (меньше GRAIN клеток) раскрываются в вызывающем потоке
+final class ParallelBfs {
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int INF = DistanceMap.UNREACHABLE;
+    private static final int GRAIN = 1 << 12;
+    private static final VarHandle DISTANCES = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final MazeGrid grid;
+    private final ForkJoinPool pool;
+    private final int[] distances;
+    // Клетки, найденные каждым куском текущего уровня
+    private int[][] parts = new int[0][];
+    private int[] partSizes = new int[0];
+
+    private ParallelBfs(MazeGrid grid, ForkJoinPool pool) {
+        this.grid = grid;
+        this.pool = pool;
+        this.distances = new int[grid.size()];
+    }
+
+    static DistanceMap solve(MazeGrid grid, ForkJoinPool pool) {
+        if (grid.target() == -1) {
+            return DistanceMap.withoutTarget(grid);
+        }
+        return new ParallelBfs(grid, pool).run();
+    }
+
+    private DistanceMap run() {
+        // Начальный уровень - все клетки '=', заодно поле заполняется бесконечностью
+        int size = grid.size();
+        int chunks = (size + GRAIN - 1) / GRAIN;
+        resetParts(chunks);
+        forEachChunk(chunks, chunk -> {
+            int from = chunk * GRAIN;
+            int to = Math.min(size, from + GRAIN);
+            Arrays.fill(distances, from, to, INF);
+            for (int cell = from; cell < to; cell++) {
+                if (grid.at(cell) == MazeGrid.TARGET) {
+                    distances[cell] = 0;
+                    add(chunk, cell);
+                }
+            }
+        });
+        int[] frontier = collect(chunks);
+
+        for (int dist = 0; frontier.length > 0; dist++) {
+            int level = dist;
+            int[] current = frontier;
+            chunks = (current.length + GRAIN - 1) / GRAIN;
+            resetParts(chunks);
+            if (chunks == 1) {
+                expand(current, 0, current.length, level, 0);
+            } else {
+                forEachChunk(chunks, chunk ->
+                    expand(current, chunk * GRAIN, Math.min(current.length, (chunk + 1) * GRAIN), level, chunk));
+            }
+            frontier = collect(chunks);
+        }
+        return new DistanceMap(grid, distances);
+    }
+
+    private void expand(int[] frontier, int from, int to, int dist, int chunk) {
+        int n = grid.rows();
+        int m = grid.cols();
+        for (int i = from; i < to; i++) {
+            int end = frontier[i];
+            for (int[] dir : DIRECTIONS) {
+                int x = end / m - dir[0];
+                int y = end % m - dir[1];
+                while (x >= 0 && x < n && y >= 0 && y < m) {
+                    int current = x * m + y;
+                    // Обычное чтение: параллельно сюда пишется только dist + 1
+                    int known = distances[current];
+                    if (grid.isWall(current) || known <= dist) {
+                        break;
+                    }
+                    if (known == INF && DISTANCES.compareAndSet(distances, current, INF, dist + 1)) {
+                        add(chunk, current);
+                    }
+                    x -= dir[0];
+                    y -= dir[1];
+                }
+            }
+        }
+    }
+
+    private void resetParts(int chunks) {
+        if (parts.length < chunks) {
+            parts = Arrays.copyOf(parts, chunks);
+            partSizes = new int[chunks];
+        }
+        Arrays.fill(partSizes, 0, chunks, 0);
+    }
+
+    // Кусок пишет только в свой массив - синхронизация не нужна
+    private void add(int chunk, int cell) {
+        int[] part = parts[chunk];
+        int count = partSizes[chunk];
+        if (part == null) {
+            part = parts[chunk] = new int[64];
+        } else if (count == part.length) {
+            part = parts[chunk] = Arrays.copyOf(part, count * 2);
+        }
+        part[count] = cell;
+        partSizes[chunk] = count + 1;
+    }
+
+    private int[] collect(int chunks) {
+        int total = 0;
+        for (int i = 0; i < chunks; i++) {
+            total += partSizes[i];
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int i = 0; i < chunks; i++) {
+            if (partSizes[i] > 0) {
+                System.arraycopy(parts[i], 0, result, offset, partSizes[i]);
+                offset += partSizes[i];
+            }
+        }
+        return result;
+    }
+
+    private void forEachChunk(int chunks, IntConsumer leaf) {
+        pool.invoke(new Chunks(0, chunks, leaf));
+    }
+
+    // Деление диапазона кусков пополам до одного куска на задачу
+    private static final class Chunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer leaf;
+
+        Chunks(int from, int to, IntConsumer leaf) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                leaf.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunks(from, middle, leaf), new Chunks(middle, to, leaf));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.studcamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Постоянный кэш результатов processMazeFiles в локальном каталоге.
+// Ключ - SHA-256 содержимого лабиринта, версии решателя и формата результата,
+// так что изменённый файл или новая версия решателя просто не находятся в кэше.
+// Запись хранит готовый файл результата и строки отчёта; при попадании файл
+// копируется, а лабиринт не разбирается и не решается.
+// Размер кэша ограничен, вытесняются давно не использованные записи:
+// порядок LRU живёт в памяти и переживает перезапуск через время изменения файлов.
+// Методы можно вызывать из нескольких потоков пакетной обработки
+public class ResultCache {
+
+    static final int MAGIC = 0x4D5A4331;
+    private static final String SUFFIX = ".entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final long maxBytes;
+    // Ключ -> запись, в порядке доступа. Файл записи и её объект в карте меняются
+    // вместе под монитором, так что по объекту видно, та же ли это запись
+    private final LinkedHashMap<String, Slot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    // Закэшированный отчёт по файлу
+    public static class Entry {
+        final long cells;
+        final List<String> lines;
+
+        Entry(long cells, List<String> lines) {
+            this.cells = cells;
+            this.lines = lines;
+        }
+    }
+
+    // Сравнивается по ссылке: store заменяет запись новым объектом
+    private static final class Slot {
+        final long bytes;
+
+        Slot(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private ResultCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ResultCache open(Path dir, long maxBytes) throws IOException {
+        Files.createDirectories(dir);
+        ResultCache cache = new ResultCache(dir, maxBytes);
+        List<Path> files;
+        List<Path> leftovers;
+        try (Stream<Path> list = Files.list(dir)) {
+            Map<Boolean, List<Path>> byKind = list.collect(Collectors.partitioningBy(
+                    path -> path.getFileName().toString().endsWith(SUFFIX)));
+            files = byKind.get(true);
+            leftovers = byKind.get(false);
+        }
+        // Временные файлы store, прерванного вместе с процессом
+        for (Path leftover : leftovers) {
+            if (leftover.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+        // Старые записи первыми - восстанавливаем порядок LRU
+        List<Object[]> stamped = new ArrayList<>();
+        for (Path file : files) {
+            stamped.add(new Object[]{file, Files.getLastModifiedTime(file), Files.size(file)});
+        }
+        stamped.sort(Comparator.comparing(entry -> (FileTime) entry[1]));
+        for (Object[] entry : stamped) {
+            String name = ((Path) entry[0]).getFileName().toString();
+            cache.entries.put(name.substring(0, name.length() - SUFFIX.length()), new Slot((Long) entry[2]));
+            cache.totalBytes += (Long) entry[2];
+        }
+        cache.evict();
+        return cache;
+    }
+
+    // Ключ записи: хэш версии решателя, формата и содержимого файла
+    public static String key(Path mazeFile, ResultFormat format) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((IcePuzzleSolver.SOLVER_VERSION + "/" + format.name() + "/").getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(mazeFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // Копирует закэшированный результат в output и возвращает отчёт, или null при промахе
+    public Entry restore(String key, Path output) {
+        Path file = dir.resolve(key + SUFFIX);
+        Slot slot;
+        synchronized (this) {
+            // get, а не containsKey: обращение поднимает запись в порядке LRU
+            slot = entries.get(key);
+            if (slot == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        boolean corrupt;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            corrupt = in.readInt() != MAGIC;
+            if (!corrupt) {
+                return readEntry(in, file, output);
+            }
+        } catch (EOFException | UTFDataFormatException e) {
+            // Обрезанная или испорченная запись - её больше не читать
+            corrupt = true;
+        } catch (IOException e) {
+            // Запись вытеснена во время чтения или не записался output - сама запись цела
+            corrupt = false;
+        }
+        if (corrupt) {
+            discard(key, slot);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // Тело записи после MAGIC. Конец файла раньше времени - запись обрезана
+    private Entry readEntry(DataInputStream in, Path file, Path output) throws IOException {
+        long cells = in.readLong();
+        int count = in.readInt();
+        // Число строк из файла не берётся ёмкостью списка: в испорченной записи оно любое
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(in.readUTF());
+        }
+        long length = in.readLong();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            copy(in, out, length);
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        hits.incrementAndGet();
+        return new Entry(cells, lines);
+    }
+
+    // Сохраняет файл результата и строки отчёта; запись появляется атомарно
+    public void store(String key, long cells, List<String> lines, Path output) throws IOException {
+        Path file = dir.resolve(key + SUFFIX);
+        Path temp = Files.createTempFile(dir, key, TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                 InputStream in = Files.newInputStream(output)) {
+                out.writeInt(MAGIC);
+                out.writeLong(cells);
+                out.writeInt(lines.size());
+                for (String line : lines) {
+                    out.writeUTF(line);
+                }
+                out.writeLong(Files.size(output));
+                in.transferTo(out);
+            }
+            long size = Files.size(temp);
+            // Файл и объект записи меняются вместе - discard не удалит свежую запись
+            synchronized (this) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Slot previous = entries.put(key, new Slot(size));
+                totalBytes += size - (previous == null ? 0 : previous.bytes);
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    public int misses() {
+        return misses.get();
+    }
+
+    public int evictions() {
+        return evictions.get();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    // Убирает повреждённую запись, если её не заменили, пока она читалась
+    private synchronized void discard(String key, Slot slot) {
+        if (!entries.remove(key, slot)) {
+            return;
+        }
+        totalBytes -= slot.bytes;
+        try {
+            Files.deleteIfExists(dir.resolve(key + SUFFIX));
+        } catch (IOException ignored) {
+            // Запись уже недоступна - ей всё равно не воспользоваться
+        }
+    }
+
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Slot>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Slot> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue().bytes;
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(dir.resolve(entry.getKey() + SUFFIX));
+            } catch (IOException ignored) {
+                // Не удалённый файл подберёт следующий open
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        while (length > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if (read < 0) {
+                throw new EOFException("Truncated cache entry");
+            }
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Двоичный формат результата: заголовок и по одному значению фиксированной
+// ширины (1, 2 или 4 байта) на клетку. Ширина - наименьшая, в которую влезают
+// расстояния и три служебных значения в её верхних кодах: стена, цель '=', недостижимо.
+//
+// Заголовок (32 байта, big-endian):
+//   0  int   MAGIC          8  int  rows    16 long смещение индекса блоков (сжатый формат)
+//   4  byte  VERSION        12 int  cols    24 int  клеток в блоке (сжатый формат)
+//   5  byte  флаги (HAS_TARGET, COMPRESSED)
+//   6  byte  ширина значения
+// Несжатые значения идут подряд с байта 32 и читаются прямо из отображённого
+// в память файла, без разбора. В сжатом формате значения разбиты на блоки
+// по BLOCK_CELLS клеток, каждый блок сжат deflate, в конце файла - индекс
+// смещений блоков; при чтении распаковывается только нужный блок.
+// Чтение сжатого файла держит последний блок в кэше и не потокобезопасно
+public class ResultFile implements AutoCloseable {
+
+    static final int MAGIC = 0x49434552;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int BLOCK_CELLS = 1 << 16;
+
+    private static final int HAS_TARGET = 1;
+    private static final int COMPRESSED = 2;
+    // Отображение файла кусками по 1 ГБ: значения выровнены по ширине и не пересекают границ
+    private static final int SEGMENT_SHIFT = 30;
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int flags;
+    private final int width;
+    private final MappedByteBuffer[] segments;
+    // Сжатый формат: индекс блоков и кэш последнего распакованного блока
+    private final long[] blockOffsets;
+    private final int blockCells;
+    private final Inflater inflater;
+    private byte[] compressedBlock;
+    private ByteBuffer block;
+    private int cachedBlock = -1;
+
+    private ResultFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt(0) != MAGIC || header.get(4) != VERSION) {
+            throw new IOException("Not a result file (bad magic or version)");
+        }
+        this.flags = header.get(5);
+        this.width = header.get(6);
+        this.rows = header.getInt(8);
+        this.cols = header.getInt(12);
+
+        if ((flags & COMPRESSED) == 0) {
+            this.segments = map(channel, HEADER_SIZE, (long) rows * cols * width);
+            this.blockOffsets = null;
+            this.blockCells = 0;
+            this.inflater = null;
+        } else {
+            this.segments = null;
+            this.blockCells = header.getInt(24);
+            int blocks = (int) (((long) rows * cols + blockCells - 1) / blockCells);
+            ByteBuffer index = ByteBuffer.allocate((blocks + 1) * Long.BYTES);
+            readFully(index, header.getLong(16));
+            index.flip();
+            this.blockOffsets = new long[blocks + 1];
+            index.asLongBuffer().get(blockOffsets);
+            this.inflater = new Inflater();
+            this.block = ByteBuffer.allocate(blockCells * width);
+            this.compressedBlock = new byte[0];
+        }
+    }
+
+    public static ResultFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ResultFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Запись результата; память - один буфер или один блок, независимо от размера лабиринта
+    public static void write(DistanceMap result, Path path, boolean compressed) throws IOException {
+        MazeGrid grid = result.grid();
+        int width = widthFor(result);
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.put(VERSION);
+            header.put((byte) ((result.hasTarget() ? HAS_TARGET : 0) | (compressed ? COMPRESSED : 0)));
+            header.put((byte) width);
+            header.put((byte) 0);
+            header.putInt(grid.rows());
+            header.putInt(grid.cols());
+            header.putLong(0);
+            header.putInt(compressed ? BLOCK_CELLS : 0);
+            header.putInt(0);
+            header.flip();
+            writeFully(out, header);
+
+            if (!compressed) {
+                ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+                for (int cell = 0; cell < grid.size(); cell++) {
+                    if (buffer.remaining() < width) {
+                        buffer.flip();
+                        writeFully(out, buffer);
+                        buffer.clear();
+                    }
+                    put(buffer, width, encode(result, cell, width));
+                }
+                buffer.flip();
+                writeFully(out, buffer);
+                return;
+            }
+
+            // В long: для самых больших лабиринтов size + BLOCK_CELLS не помещается в int
+            int blocks = (int) (((long) grid.size() + BLOCK_CELLS - 1) / BLOCK_CELLS);
+            ByteBuffer index = ByteBuffer.allocate((blocks + 1) * Long.BYTES);
+            ByteBuffer raw = ByteBuffer.allocate(BLOCK_CELLS * width);
+            byte[] packed = new byte[BLOCK_CELLS * width + 1024];
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                long offset = HEADER_SIZE;
+                for (int b = 0; b < blocks; b++) {
+                    raw.clear();
+                    long start = (long) b * BLOCK_CELLS;
+                    int end = (int) Math.min(grid.size(), start + BLOCK_CELLS);
+                    for (int cell = (int) start; cell < end; cell++) {
+                        put(raw, width, encode(result, cell, width));
+                    }
+                    deflater.reset();
+                    deflater.setInput(raw.array(), 0, raw.position());
+                    deflater.finish();
+                    int length = 0;
+                    while (!deflater.finished()) {
+                        if (length == packed.length) {
+                            packed = Arrays.copyOf(packed, packed.length * 2);
+                        }
+                        length += deflater.deflate(packed, length, packed.length - length);
+                    }
+                    index.putLong(offset);
+                    writeFully(out, ByteBuffer.wrap(packed, 0, length));
+                    offset += length;
+                }
+                index.putLong(offset);
+                index.flip();
+                writeFully(out, index);
+                // Смещение индекса известно только теперь - дописываем его в заголовок
+                ByteBuffer indexOffset = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+                out.write(indexOffset, 16);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public boolean hasTarget() {
+        return (flags & HAS_TARGET) != 0;
+    }
+
+    public boolean isCompressed() {
+        return (flags & COMPRESSED) != 0;
+    }
+
+    // Байт на клетку в данных файла
+    public int width() {
+        return width;
+    }
+
+    // Расстояние, как в текстовом результате: 0 для клеток '=',
+    // DistanceMap.UNREACHABLE для стен и недостижимых клеток
+    public int distance(int x, int y) {
+        return distance(x * cols + y);
+    }
+
+    public int distance(int cell) {
+        int value = value(cell);
+        int top = topCode(width);
+        if (value == top - 2) {
+            return 0;
+        }
+        if (value > top - 2) {
+            return DistanceMap.UNREACHABLE;
+        }
+        return value;
+    }
+
+    public boolean isWall(int cell) {
+        return value(cell) == topCode(width) - 1;
+    }
+
+    // Метка клетки в формате _result.txt
+    public String label(int cell) {
+        int value = value(cell);
+        int top = topCode(width);
+        if (value == top) {
+            return "∞";
+        }
+        if (value == top - 1) {
+            return hasTarget() ? "X" : "0";
+        }
+        if (value == top - 2) {
+            return "0";
+        }
+        return String.valueOf(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+        }
+        channel.close();
+    }
+
+    private int value(int cell) {
+        if (cell < 0 || cell >= (long) rows * cols) {
+            throw new IndexOutOfBoundsException("Cell " + cell + " outside " + rows + "x" + cols);
+        }
+        if (segments != null) {
+            long position = (long) cell * width;
+            return get(segments[(int) (position >>> SEGMENT_SHIFT)],
+                       (int) (position & ((1 << SEGMENT_SHIFT) - 1)), width);
+        }
+        int blockIndex = cell / blockCells;
+        if (blockIndex != cachedBlock) {
+            inflate(blockIndex);
+        }
+        return get(block, (cell % blockCells) * width, width);
+    }
+
+    private void inflate(int blockIndex) {
+        try {
+            int length = (int) (blockOffsets[blockIndex + 1] - blockOffsets[blockIndex]);
+            if (compressedBlock.length < length) {
+                compressedBlock = new byte[length];
+            }
+            readFully(ByteBuffer.wrap(compressedBlock, 0, length), blockOffsets[blockIndex]);
+            inflater.reset();
+            inflater.setInput(compressedBlock, 0, length);
+            int size = 0;
+            byte[] out = block.array();
+            while (!inflater.finished() && size < out.length) {
+                int n = inflater.inflate(out, size, out.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            cachedBlock = blockIndex;
+        } catch (IOException | DataFormatException e) {
+            cachedBlock = -1;
+            throw new IllegalStateException("Corrupted result block " + blockIndex, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of result file");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long offset, long size) throws IOException {
+        long segmentSize = 1L << SEGMENT_SHIFT;
+        int count = (int) ((size + segmentSize - 1) / segmentSize);
+        MappedByteBuffer[] result = new MappedByteBuffer[Math.max(count, 1)];
+        if (count == 0) {
+            result[0] = channel.map(FileChannel.MapMode.READ_ONLY, offset, 0);
+        }
+        for (int i = 0; i < count; i++) {
+            long start = i * segmentSize;
+            result[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, Math.min(segmentSize, size - start));
+        }
+        return result;
+    }
+
+    // Наибольший код ширины width: недостижимо; на 1 меньше - стена, на 2 - цель
+    private static int topCode(int width) {
+        return width == 4 ? Integer.MAX_VALUE : (1 << (8 * width)) - 1;
+    }
+
+    private static int widthFor(DistanceMap result) {
+        int max = 0;
+        if (result.hasTarget()) {
+            for (int cell = 0; cell < result.grid().size(); cell++) {
+                int distance = result.distance(cell);
+                if (distance != DistanceMap.UNREACHABLE) {
+                    max = Math.max(max, distance);
+                }
+            }
+        }
+        if (max <= topCode(1) - 3) {
+            return 1;
+        }
+        return max <= topCode(2) - 3 ? 2 : 4;
+    }
+
+    private static int encode(DistanceMap result, int cell, int width) {
+        int top = topCode(width);
+        byte code = result.grid().at(cell);
+        if (code == MazeGrid.WALL) {
+            return top - 1;
+        }
+        if (code == MazeGrid.TARGET) {
+            return top - 2;
+        }
+        int distance = result.distance(cell);
+        return distance == DistanceMap.UNREACHABLE ? top : distance;
+    }
+
+    private static void put(ByteBuffer buffer, int width, int value) {
+        if (width == 1) {
+            buffer.put((byte) value);
+        } else if (width == 2) {
+            buffer.putShort((short) value);
+        } else {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int get(ByteBuffer buffer, int index, int width) {
+        if (width == 1) {
+            return buffer.get(index) & 0xFF;
+        }
+        if (width == 2) {
+            return buffer.getShort(index) & 0xFFFF;
+        }
+        return buffer.getInt(index);
+    }
+}
@@ -0,0 +1,45 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Формат файла результата для processMazeFiles
+public enum ResultFormat {
+
+    // Текст: расстояния через пробел, "X" - стена, "∞" - недостижимо
+    TEXT("_result.txt") {
+        @Override
+        void write(DistanceMap result, Path path) throws IOException {
+            IcePuzzleSolver.writeOutput(result, path);
+        }
+    },
+
+    // ResultFile с фиксированной шириной значений, читается через отображение в память
+    BINARY("_result.bin") {
+        @Override
+        void write(DistanceMap result, Path path) throws IOException {
+            ResultFile.write(result, path, false);
+        }
+    },
+
+    // ResultFile, сжатый блоками - произвольный доступ распаковывает один блок
+    BINARY_COMPRESSED("_result.bin") {
+        @Override
+        void write(DistanceMap result, Path path) throws IOException {
+            ResultFile.write(result, path, true);
+        }
+    };
+
+    private final String suffix;
+
+    ResultFormat(String suffix) {
+        this.suffix = suffix;
+    }
+
+    // maze1.txt -> maze1_result.txt или maze1_result.bin
+    public String outputName(String inputFileName) {
+        return inputFileName.replace(".txt", suffix);
+    }
+
+    abstract void write(DistanceMap result, Path path) throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.studcamp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR событие на каждый BFS solve. Пока запись события выключена, solve его
+// не заполняет и счётчики не собирает:
+//   java -XX:StartFlightRecording:filename=batch.jfr,settings=profile -jar ...
+//   jfr print --events ice.sliding.Solve batch.jfr
+@Name("ice.sliding.Solve")
+@Label("Maze Solve")
+@Category({"Ice Puzzle", "sliding"})
+@StackTrace(false)
+class SolveEvent extends Event {
+
+    @Label("Cells")
+    long cells;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Slide Steps")
+    long slideSteps;
+
+    @Label("Peak Frontier")
+    long peakFrontier;
+
+    @Label("Visited")
+    long visited;
+}
@@ -0,0 +1,117 @@
+package com.studcamp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+// Счётчики решения лабиринта. Заполняются, только если объект передан в решатель
+// (solvePuzzle(grid, stats), BatchOptions.stats) или пишется JFR событие SolveEvent;
+// без этого BFS ничего не считает сверх обычного.
+// Счётчики складываются: один объект можно передать в несколько решений,
+// пакетная обработка так и собирает итог по всем файлам.
+//   expanded     - клеток, снятых из очереди BFS
+//   generated    - клеток обратных лучей, из которых свайп приходит в снятую клетку
+//   duplicates   - из них уже размеченных раньше
+//   slideSteps   - просмотренных клеток лучей, включая клетку, где луч оборван
+//   peakFrontier - наибольшая длина очереди BFS
+//   visited      - размеченных клеток, включая цели
+// Фазы: разбор файла, поиск, запись результата; память - выделенная потоком решения
+public class SolveStats {
+
+    long solves;
+    long cells;
+    long expanded;
+    long generated;
+    long duplicates;
+    long slideSteps;
+    long peakFrontier;
+    long visited;
+    long parseNanos;
+    long searchNanos;
+    long formatNanos;
+    long allocatedBytes;
+
+    // Число решений, вошедших в счётчики
+    public long solves() {
+        return solves;
+    }
+
+    public long cells() {
+        return cells;
+    }
+
+    public long expanded() {
+        return expanded;
+    }
+
+    public long generated() {
+        return generated;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    public long slideSteps() {
+        return slideSteps;
+    }
+
+    // При сложении - наибольший пик, а не сумма
+    public long peakFrontier() {
+        return peakFrontier;
+    }
+
+    public long visited() {
+        return visited;
+    }
+
+    public long parseNanos() {
+        return parseNanos;
+    }
+
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    public long formatNanos() {
+        return formatNanos;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // Добавляет счётчики other; вызывается из одного потока
+    public void add(SolveStats other) {
+        solves += other.solves;
+        cells += other.cells;
+        expanded += other.expanded;
+        generated += other.generated;
+        duplicates += other.duplicates;
+        slideSteps += other.slideSteps;
+        peakFrontier = Math.max(peakFrontier, other.peakFrontier);
+        visited += other.visited;
+        parseNanos += other.parseNanos;
+        searchNanos += other.searchNanos;
+        formatNanos += other.formatNanos;
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    // Байт, выделенных текущим потоком с его старта, или 0, если JVM этого не умеет
+    static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d solves, %d cells: expanded %d, generated %d, duplicates %d, slide steps %d, " +
+                "peak frontier %d, visited %d; parse %.1f ms, search %.1f ms, format %.1f ms, allocated %.1f MB",
+                solves, cells, expanded, generated, duplicates, slideSteps, peakFrontier, visited,
+                parseNanos / 1e6, searchNanos / 1e6, formatNanos / 1e6, allocatedBytes / 1048576.0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.studcamp;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Поле клеток в файле, разбитом на квадратные тайлы по 2^shift клеток на сторону.
+// Тайл лежит в файле одним куском и отображается в память при первом обращении.
+// Отображённых тайлов не больше maxResident: давно не нужный отпускается (LRU),
+// его грязные страницы сбрасываются в файл. Сам отказ от отображения делает GC,
+// но отпущенный тайл больше не трогается, и ОС может забрать его страницы.
+// Новый файл разрежен и читается нулями. Не потокобезопасен
+final class TileStore implements AutoCloseable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int shift;
+    private final int mask;
+    private final int cellBytes;
+    private final int tileCols;
+    private final long tileBytes;
+    private final LinkedHashMap<Long, MappedByteBuffer> resident;
+    // Последний тайл - лучи и строки обычно остаются в нём
+    private long lastIndex = -1;
+    private MappedByteBuffer last;
+    private long mapped;
+
+    TileStore(Path path, int cols, int shift, int cellBytes, int maxResident) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+        this.cellBytes = cellBytes;
+        this.tileCols = (cols + mask) >>> shift;
+        this.tileBytes = (long) cellBytes << (2 * shift);
+        this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                if (size() <= maxResident) {
+                    return false;
+                }
+                eldest.getValue().force();
+                return true;
+            }
+        };
+    }
+
+    byte getByte(int x, int y) {
+        return tile(x, y).get(offset(x, y));
+    }
+
+    void putByte(int x, int y, byte value) {
+        tile(x, y).put(offset(x, y), value);
+    }
+
+    int getInt(int x, int y) {
+        return tile(x, y).getInt(offset(x, y));
+    }
+
+    void putInt(int x, int y, int value) {
+        tile(x, y).putInt(offset(x, y), value);
+    }
+
+    // Сколько раз тайлы отображались - мера промахов резидентного набора
+    long mappedTiles() {
+        return mapped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        resident.clear();
+        last = null;
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private MappedByteBuffer tile(int x, int y) {
+        long index = (long) (x >>> shift) * tileCols + (y >>> shift);
+        if (index != lastIndex) {
+            MappedByteBuffer buffer = resident.get(index);
+            if (buffer == null) {
+                buffer = map(index);
+                resident.put(index, buffer);
+            }
+            last = buffer;
+            lastIndex = index;
+        }
+        return last;
+    }
+
+    private MappedByteBuffer map(long index) {
+        try {
+            mapped++;
+            // Отображение за концом файла само его удлиняет
+            return channel.map(FileChannel.MapMode.READ_WRITE, index * tileBytes, tileBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map tile " + index + " of " + path, e);
+        }
+    }
+
+    private int offset(int x, int y) {
+        return (((x & mask) << shift) | (y & mask)) * cellBytes;
+    }
+}
@@ -0,0 +1,186 @@
+package com.studcamp;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Поиск solve для лабиринтов больше кучи. Сетка (1 байт на клетку) и расстояния
+// (4 байта) лежат в TileStore - тайлах по TILE_SHIFT, отображённых в память,
+// из которых резидентны не больше residentTiles каждого вида. Очередь BFS -
+// DiskQueue на диске. В куче остаются только буферы, счётчики и резидентный набор,
+// так что размер лабиринта ограничен диском, а не -Xmx.
+//
+// Файл читается потоково прямо в тайлы, клетки '=' сразу встают в очередь.
+// Дальше тот же BFS, что в solve, с тем же правилом обрыва лучей - расстояния
+// совпадают с solvePuzzle. В тайле расстояний хранится d + 1, так что нули
+// разреженного файла означают "ещё не достигнута" и заполнять его не нужно.
+// Рабочие файлы создаются в workDir и удаляются в close
+public class TiledSolver implements AutoCloseable {
+
+    // Тайл 256x256 клеток: 64 КБ сетки, 256 КБ расстояний
+    static final int TILE_SHIFT = 8;
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private final Path workDir;
+    private final int residentTiles;
+    private final int tileShift;
+    private TileStore grid;
+    private TileStore distances;
+    private DiskQueue queue;
+    private int rows;
+    private int cols;
+    private boolean hasTarget;
+
+    private TiledSolver(Path workDir, int residentTiles, int tileShift) {
+        this.workDir = workDir;
+        this.residentTiles = residentTiles;
+        this.tileShift = tileShift;
+    }
+
+    public static TiledSolver solve(Path mazeFile, Path workDir, int residentTiles) throws IOException {
+        return solve(mazeFile, workDir, residentTiles, TILE_SHIFT);
+    }
+
+    static TiledSolver solve(Path mazeFile, Path workDir, int residentTiles, int tileShift) throws IOException {
+        TiledSolver solver = new TiledSolver(workDir, residentTiles, tileShift);
+        try {
+            solver.load(mazeFile);
+            solver.search();
+            return solver;
+        } catch (IOException | RuntimeException e) {
+            solver.close();
+            throw e;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    // Число свайпов до ближайшей цели или DistanceMap.UNREACHABLE, как DistanceMap.distance
+    public int distance(int x, int y) {
+        int stored = hasTarget ? distances.getInt(x, y) : 0;
+        return stored == 0 ? DistanceMap.UNREACHABLE : stored - 1;
+    }
+
+    // Метка клетки в формате _result.txt, как DistanceMap.label
+    public String label(int x, int y) {
+        byte code = grid.getByte(x, y);
+        if (!hasTarget) {
+            return code == MazeGrid.WALL || code == MazeGrid.TARGET ? "0" : "∞";
+        }
+        if (code == MazeGrid.WALL) {
+            return "X";
+        }
+        if (code == MazeGrid.TARGET) {
+            return "0";
+        }
+        int distance = distance(x, y);
+        return distance == DistanceMap.UNREACHABLE ? "∞" : String.valueOf(distance);
+    }
+
+    // Результат в формате IcePuzzleSolver.writeOutput, по строке за раз
+    public void writeOutput(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < rows; i++) {
+                row.setLength(0);
+                for (int j = 0; j < cols; j++) {
+                    row.append(label(i, j));
+                    if (j < cols - 1) {
+                        row.append(' ');
+                    }
+                }
+                if (i < rows - 1) {
+                    row.append('\n');
+                }
+                writer.append(row);
+            }
+        }
+    }
+
+    // Сколько раз отображались тайлы сетки и расстояний - промахи резидентного набора
+    public long mappedTiles() {
+        return grid.mappedTiles() + distances.mappedTiles();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (grid != null) {
+            grid.close();
+        }
+        if (distances != null) {
+            distances.close();
+        }
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    private void load(Path mazeFile) throws IOException {
+        queue = new DiskQueue(Files.createTempFile(workDir, "queue", ".bin"));
+        rows = MazeReader.read(mazeFile, new MazeReader.RowSink() {
+            @Override
+            public void start(int width) throws IOException {
+                cols = width;
+                grid = new TileStore(Files.createTempFile(workDir, "grid", ".tiles"),
+                                     cols, tileShift, 1, residentTiles);
+                distances = new TileStore(Files.createTempFile(workDir, "distances", ".tiles"),
+                                          cols, tileShift, Integer.BYTES, residentTiles);
+            }
+
+            @Override
+            public void row(int index, byte[] codes) throws IOException {
+                for (int j = 0; j < codes.length; j++) {
+                    if (codes[j] != MazeGrid.FREE) {
+                        grid.putByte(index, j, codes[j]);
+                    }
+                    if (codes[j] == MazeGrid.TARGET) {
+                        distances.putInt(index, j, 1);
+                        queue.push((long) index * cols + j);
+                        hasTarget = true;
+                    }
+                }
+            }
+        });
+    }
+
+    private void search() throws IOException {
+        while (!queue.isEmpty()) {
+            long end = queue.pop();
+            int endX = (int) (end / cols);
+            int endY = (int) (end % cols);
+            // Хранимые значения: d + 1
+            int stored = distances.getInt(endX, endY);
+            for (int[] dir : DIRECTIONS) {
+                int x = endX - dir[0];
+                int y = endY - dir[1];
+                while (x >= 0 && x < rows && y >= 0 && y < cols) {
+                    if (grid.getByte(x, y) == MazeGrid.WALL) {
+                        break;
+                    }
+                    int known = distances.getInt(x, y);
+                    if (known != 0 && known <= stored) {
+                        break;
+                    }
+                    if (known == 0) {
+                        distances.putInt(x, y, stored + 1);
+                        queue.push((long) x * cols + y);
+                    }
+                    x -= dir[0];
+                    y -= dir[1];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,674 @@
+package com.studcamp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class IcePuzzleSolverTest {
+
+    @Test
+    @DisplayName("Тест 1: Маленький лабиринт - расстояния и метки результата")
+    void testSmallMaze() {
+        String maze = String.join("\n",
+            "+..0",
+            ".0..",
+            "...=");
+        DistanceMap result = IcePuzzleSolver.solvePuzzle(MazeGrid.parse(maze));
+
+        String expected = String.join("\n",
+            "2 3 2 X",
+            "2 X 2 1",
+            "1 1 1 0");
+        assertEquals(expected, IcePuzzleSolver.formatOutput(result));
+    }
+
+    @Test
+    @DisplayName("Тест 2: Строковый API остаётся обёрткой над компактным")
+    void testStringWrapper() {
+        String maze = "+.0.\n..0=\n0...";
+        String[][] grid = IcePuzzleSolver.parseInput(maze);
+
+        String[][] result = IcePuzzleSolver.solvePuzzle(grid);
+
+        assertEquals(IcePuzzleSolver.formatOutput(IcePuzzleSolver.solvePuzzle(MazeGrid.parse(maze))),
+                     IcePuzzleSolver.formatOutput(result));
+    }
+
+    @Test
+    @DisplayName("Тест 3: Лабиринт без цели - стены \"0\", остальное недостижимо")
+    void testMazeWithoutTarget() {
+        DistanceMap result = IcePuzzleSolver.solvePuzzle(MazeGrid.parse("+.0\n..."));
+
+        assertFalse(result.hasTarget());
+        assertEquals("∞ ∞ 0\n∞ ∞ ∞", IcePuzzleSolver.formatOutput(result));
+    }
+
+    @Test
+    @DisplayName("Тест 4: Разностная проверка с прежней реализацией на случайных лабиринтах")
+    void testMatchesReferenceSolver() {
+        Random random = new Random(12);
+        for (int t = 0; t < 500; t++) {
+            MazeGrid grid = MazeGrid.parse(randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30)));
+
+            DistanceMap expected = ReferenceSolver.solvePuzzle(grid);
+            DistanceMap actual = IcePuzzleSolver.solvePuzzle(grid);
+
+            for (int cell = 0; cell < grid.size(); cell++) {
+                assertEquals(expected.distance(cell), actual.distance(cell), "Лабиринт " + t + ", клетка " + cell);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 5: Длинные открытые коридоры решаются за линейное время")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testLongOpenCorridors() {
+        int size = 2000;
+        StringBuilder maze = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                maze.append(i == size - 1 && j == size - 1 ? '=' : '.');
+            }
+            maze.append('\n');
+        }
+        MazeGrid grid = MazeGrid.parse(maze.toString());
+
+        DistanceMap result = IcePuzzleSolver.solvePuzzle(grid);
+
+        assertEquals(1, result.distance(grid.cell(0, size - 1)));
+        assertEquals(2, result.distance(grid.cell(0, 0)));
+    }
+
+    @Test
+    @DisplayName("Тест 6: Инкрементальные правки стен совпадают с полным пересчётом")
+    void testIncrementalUpdatesMatchFullSolve() {
+        Random random = new Random(15);
+        for (int t = 0; t < 100; t++) {
+            MazeGrid grid = MazeGrid.parse(randomMaze(random, 2 + random.nextInt(25), 2 + random.nextInt(25)));
+            IncrementalSolver solver = new IncrementalSolver(grid);
+
+            for (int step = 0; step < 20; step++) {
+                MazeGrid current = solver.grid();
+                int[] added = new int[random.nextInt(3)];
+                int[] removed = new int[random.nextInt(3)];
+                for (int i = 0; i < added.length; i++) {
+                    added[i] = random.nextInt(current.size());
+                }
+                for (int i = 0; i < removed.length; i++) {
+                    removed[i] = random.nextInt(current.size());
+                }
+                solver.update(added, removed);
+
+                DistanceMap expected = IcePuzzleSolver.solvePuzzle(current.copy());
+                DistanceMap actual = solver.result();
+                assertEquals(IcePuzzleSolver.formatOutput(expected), IcePuzzleSolver.formatOutput(actual),
+                             "Лабиринт " + t + ", правка " + step);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 7: Одиночная стена в большом лабиринте чинится без полного пересчёта")
+    void testSingleWallIsRepairedIncrementally() {
+        MazeGrid grid = MazeGrid.parse(randomMaze(new Random(7), 300, 300));
+        IncrementalSolver solver = new IncrementalSolver(grid);
+        int cell = grid.cell(150, 150);
+
+        assertTrue(solver.update(new int[]{cell}, new int[0]));
+        assertTrue(solver.update(new int[0], new int[]{cell}));
+        assertEquals(IcePuzzleSolver.formatOutput(IcePuzzleSolver.solvePuzzle(grid)),
+                     IcePuzzleSolver.formatOutput(solver.result()));
+    }
+
+    @Test
+    @DisplayName("Тест 8: Двоичный результат читается обратно с теми же метками")
+    void testBinaryResultRoundTrip() throws IOException {
+        Random random = new Random(16);
+        Path file = Files.createTempFile("maze", "_result.bin");
+        try {
+            for (int t = 0; t < 40; t++) {
+                MazeGrid grid = MazeGrid.parse(randomMaze(random, 1 + random.nextInt(300), 1 + random.nextInt(300)));
+                DistanceMap result = IcePuzzleSolver.solvePuzzle(grid);
+                boolean compressed = t % 2 == 1;
+
+                ResultFile.write(result, file, compressed);
+                try (ResultFile read = ResultFile.open(file)) {
+                    assertEquals(grid.rows(), read.rows());
+                    assertEquals(grid.cols(), read.cols());
+                    assertEquals(compressed, read.isCompressed());
+                    assertEquals(1, read.width());
+                    for (int cell = 0; cell < grid.size(); cell++) {
+                        assertEquals(result.label(cell), read.label(cell), "Лабиринт " + t + ", клетка " + cell);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 9: Ширина значения растёт с наибольшим расстоянием")
+    void testBinaryResultWidth() throws IOException {
+        MazeGrid grid = MazeGrid.parse("=.0\n...");
+        Path file = Files.createTempFile("maze", "_result.bin");
+        try {
+            for (int max : new int[]{252, 253, 65532, 65533, 1 << 20}) {
+                int[] distances = {0, max, DistanceMap.UNREACHABLE, 1, 2, DistanceMap.UNREACHABLE};
+                DistanceMap result = new DistanceMap(grid, distances);
+                for (boolean compressed : new boolean[]{false, true}) {
+                    ResultFile.write(result, file, compressed);
+                    try (ResultFile read = ResultFile.open(file)) {
+                        assertEquals(max <= 252 ? 1 : max <= 65532 ? 2 : 4, read.width());
+                        assertEquals(0, read.distance(0, 0));
+                        assertEquals(max, read.distance(0, 1));
+                        assertTrue(read.isWall(2));
+                        assertEquals(DistanceMap.UNREACHABLE, read.distance(1, 2));
+                        assertEquals("∞", read.label(5));
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 10: Кэш результатов - попадание по содержимому и вытеснение давних записей")
+    void testResultCache() throws IOException {
+        Path dir = Files.createTempDirectory("maze-cache");
+        Path maze = dir.resolve("maze1.txt");
+        Path output = dir.resolve("maze1_result.txt");
+        try {
+            ResultCache cache = ResultCache.open(dir.resolve("cache"), 1 << 20);
+            Files.writeString(maze, "..=\n.0.\n+..");
+            String key = ResultCache.key(maze, ResultFormat.TEXT);
+            assertNull(cache.restore(key, output));
+
+            Files.writeString(output, "result");
+            cache.store(key, 9, List.of("  line"), output);
+            Files.delete(output);
+            ResultCache.Entry entry = cache.restore(key, output);
+            assertNotNull(entry);
+            assertEquals(9, entry.cells);
+            assertEquals(List.of("  line"), entry.lines);
+            assertEquals("result", Files.readString(output));
+            assertEquals(1, cache.hits());
+            assertEquals(1, cache.misses());
+
+            // Другое содержимое или формат - другой ключ
+            assertNotEquals(key, ResultCache.key(maze, ResultFormat.BINARY));
+            Files.writeString(maze, "..=\n...\n+..");
+            assertNotEquals(key, ResultCache.key(maze, ResultFormat.TEXT));
+
+            // Запись переживает перезапуск; при переполнении уходит самая давняя
+            cache = ResultCache.open(dir.resolve("cache"), 3 * cache.totalBytes() + 1);
+            Files.writeString(output, "other");
+            cache.store("a", 1, List.of(), output);
+            assertNotNull(cache.restore(key, output));
+            cache.store("b", 1, List.of(), output);
+            cache.store("c", 1, List.of(), output);
+            assertEquals(1, cache.evictions());
+            assertNull(cache.restore("a", output));
+            assertNotNull(cache.restore(key, output));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 11: Несколько выходов - расстояние до ближайшего и его номер")
+    void testMultipleExits() {
+        MazeGrid small = MazeGrid.parse("=.0.=\n..0..");
+        DistanceMap exits = IcePuzzleSolver.solvePuzzle(small, true);
+        assertEquals("0 1 X 1 0\n1 2 X 2 1", IcePuzzleSolver.formatOutput(exits));
+        assertEquals(0, exits.exitNumber(small.cell(1, 1)));
+        assertEquals(1, exits.exitNumber(small.cell(1, 3)));
+        assertEquals(small.cell(0, 4), exits.nearestExit(small.cell(0, 3)));
+        assertEquals(-1, exits.exitNumber(small.cell(0, 2)));
+
+        // Каждая клетка получает расстояние до ближайшего выхода, и помеченный
+        // выход действительно на этом расстоянии, если искать только от него
+        Random random = new Random(18);
+        for (int t = 0; t < 100; t++) {
+            MazeGrid grid = MazeGrid.parse(randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30)));
+            DistanceMap result = IcePuzzleSolver.solvePuzzle(grid, true);
+            List<Integer> targets = new ArrayList<>();
+            for (int cell = 0; cell < grid.size(); cell++) {
+                if (grid.at(cell) == MazeGrid.TARGET) {
+                    targets.add(cell);
+                }
+            }
+            DistanceMap[] single = new DistanceMap[targets.size()];
+            for (int e = 0; e < targets.size(); e++) {
+                MazeGrid only = grid.copy();
+                for (int other : targets) {
+                    if (other != targets.get(e)) {
+                        only.set(other, MazeGrid.FREE);
+                    }
+                }
+                single[e] = IcePuzzleSolver.solvePuzzle(only);
+            }
+            for (int cell = 0; cell < grid.size(); cell++) {
+                if (grid.isWall(cell) || targets.isEmpty()) {
+                    continue;
+                }
+                int best = DistanceMap.UNREACHABLE;
+                for (DistanceMap map : single) {
+                    best = Math.min(best, map.distance(cell));
+                }
+                assertEquals(best, result.distance(cell), "Лабиринт " + t + ", клетка " + cell);
+                int exit = result.exitNumber(cell);
+                if (best == DistanceMap.UNREACHABLE) {
+                    assertEquals(-1, exit);
+                } else {
+                    assertEquals(best, single[exit].distance(cell));
+                    assertEquals((int) targets.get(exit), result.nearestExit(cell));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 12: Параллельный BFS по уровням даёт те же расстояния")
+    void testParallelLevelsMatchSequential() {
+        Random random = new Random(19);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int t = 0; t < 30; t++) {
+                // Крупные лабиринты, чтобы широкие уровни действительно делились на куски
+                int rows = t < 10 ? 1 + random.nextInt(30) : 200 + random.nextInt(400);
+                int cols = t < 10 ? 1 + random.nextInt(30) : 200 + random.nextInt(400);
+                MazeGrid grid = MazeGrid.parse(randomMaze(random, rows, cols));
+                DistanceMap expected = IcePuzzleSolver.solvePuzzle(grid);
+                DistanceMap actual = IcePuzzleSolver.solvePuzzle(grid, pool);
+                for (int cell = 0; cell < grid.size(); cell++) {
+                    assertEquals(expected.distance(cell), actual.distance(cell), "Лабиринт " + t + ", клетка " + cell);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 13: Поиск по тайлам на диске совпадает с поиском в памяти")
+    void testTiledSolverMatchesInMemory() throws IOException {
+        Random random = new Random(20);
+        Path dir = Files.createTempDirectory("tiles");
+        Path maze = dir.resolve("maze.txt");
+        Path output = dir.resolve("maze_result.txt");
+        try {
+            for (int t = 0; t < 40; t++) {
+                Files.writeString(maze, randomMaze(random, 1 + random.nextInt(60), 1 + random.nextInt(60)));
+                DistanceMap expected = IcePuzzleSolver.solve(MazeGrid.read(maze));
+                // Тайлы 4x4 и всего три резидентных - обращения постоянно выходят за набор
+                try (TiledSolver tiled = TiledSolver.solve(maze, dir, 3, 2)) {
+                    MazeGrid grid = expected.grid();
+                    assertEquals(grid.rows(), tiled.rows());
+                    assertEquals(grid.cols(), tiled.cols());
+                    for (int cell = 0; cell < grid.size(); cell++) {
+                        int x = cell / grid.cols();
+                        int y = cell % grid.cols();
+                        assertEquals(expected.distance(cell), tiled.distance(x, y), "Лабиринт " + t + ", клетка " + cell);
+                    }
+                    tiled.writeOutput(output);
+                    assertEquals(IcePuzzleSolver.formatOutput(expected), Files.readString(output));
+                }
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(2, files.count(), "Рабочие файлы удалены");
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 14: Счётчики решения сходятся с результатом и складываются")
+    void testSolveStats() {
+        String maze = String.join("\n",
+            "+..0",
+            ".0..",
+            "...=");
+        MazeGrid grid = MazeGrid.parse(maze);
+        assertNull(IcePuzzleSolver.solvePuzzle(grid).stats());
+
+        SolveStats stats = new SolveStats();
+        DistanceMap result = IcePuzzleSolver.solvePuzzle(grid, stats);
+        assertSame(stats, result.stats());
+        // Все 10 проходимых клеток достижимы, цель одна
+        assertEquals(1, stats.solves());
+        assertEquals(12, stats.cells());
+        assertEquals(10, stats.visited());
+        assertEquals(10, stats.expanded());
+        assertEquals(9, stats.generated() - stats.duplicates(), "Новые клетки - все, кроме цели");
+        assertTrue(stats.slideSteps() >= stats.generated());
+        assertTrue(stats.peakFrontier() >= 1 && stats.peakFrontier() <= 10);
+        assertTrue(stats.searchNanos() > 0);
+
+        // Тот же объект во втором решении - счётчики складываются
+        long generated = stats.generated();
+        IcePuzzleSolver.solvePuzzle(grid, stats);
+        assertEquals(2, stats.solves());
+        assertEquals(20, stats.visited());
+        assertEquals(2 * generated, stats.generated());
+
+        SolveStats total = new SolveStats();
+        total.add(stats);
+        total.add(stats);
+        assertEquals(40, total.visited());
+        assertEquals(stats.peakFrontier(), total.peakFrontier());
+        assertEquals(IcePuzzleSolver.formatOutput(result), IcePuzzleSolver.formatOutput(IcePuzzleSolver.solvePuzzle(grid)));
+
+        // Лабиринт без цели не решается - и в счётчики не попадает
+        SolveStats none = new SolveStats();
+        IcePuzzleSolver.solvePuzzle(MazeGrid.parse("+..\n.0."), none);
+        assertEquals(0, none.solves());
+        assertEquals(0, none.cells());
+    }
+
+    @Test
+    @DisplayName("Тест 15: JFR-событие решения несёт счётчики одного решения, а не накопленные")
+    void testSolveEventPerSolve() throws IOException {
+        MazeGrid first = MazeGrid.parse(String.join("\n",
+            "+..0",
+            ".0..",
+            "...="));
+        MazeGrid second = MazeGrid.parse(String.join("\n",
+            "+.0..",
+            "..0.=",
+            "....."));
+        SolveStats firstAlone = new SolveStats();
+        IcePuzzleSolver.solvePuzzle(first, firstAlone);
+        SolveStats secondAlone = new SolveStats();
+        IcePuzzleSolver.solvePuzzle(second, secondAlone);
+
+        // Один объект на оба решения - как в processMazeFile со stats
+        SolveStats shared = new SolveStats();
+        Path file = Files.createTempFile("solve-events", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("ice.sliding.Solve").withThreshold(Duration.ZERO);
+            recording.start();
+            IcePuzzleSolver.solvePuzzle(first, shared);
+            // Без цели события нет
+            IcePuzzleSolver.solve(MazeGrid.parse("+..\n.0."), false, shared);
+            IcePuzzleSolver.solvePuzzle(second, shared);
+            recording.stop();
+            recording.dump(file);
+            events = new ArrayList<>(RecordingFile.readAllEvents(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertEquals(2, events.size());
+        events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+        SolveStats[] alone = {firstAlone, secondAlone};
+        for (int i = 0; i < 2; i++) {
+            RecordedEvent event = events.get(i);
+            assertEquals(alone[i].expanded(), event.getLong("expanded"));
+            assertEquals(alone[i].generated(), event.getLong("generated"));
+            assertEquals(alone[i].duplicates(), event.getLong("duplicates"));
+            assertEquals(alone[i].slideSteps(), event.getLong("slideSteps"));
+        }
+        assertEquals(firstAlone.generated() + secondAlone.generated(), shared.generated());
+    }
+
+    @Test
+    @DisplayName("Тест 16: Кэш выбрасывает только испорченную запись и чистит брошенные .tmp")
+    void testResultCacheFailures() throws IOException {
+        Path dir = Files.createTempDirectory("maze-cache");
+        Path cacheDir = dir.resolve("cache");
+        Path output = dir.resolve("maze1_result.txt");
+        try {
+            ResultCache cache = ResultCache.open(cacheDir, 1 << 20);
+            Files.writeString(output, "result");
+            cache.store("good", 4, List.of("line"), output);
+            cache.store("broken", 4, List.of("line"), output);
+            long oneEntry = cache.totalBytes() / 2;
+
+            // Ошибка записи output - промах, но запись остаётся
+            assertNull(cache.restore("good", dir.resolve("missing").resolve("out.txt")));
+            assertTrue(Files.exists(cacheDir.resolve("good.entry")));
+            assertNotNull(cache.restore("good", output));
+            assertEquals("result", Files.readString(output));
+
+            // Обрезанная запись удаляется вместе с файлом
+            Path broken = cacheDir.resolve("broken.entry");
+            byte[] bytes = Files.readAllBytes(broken);
+            Files.write(broken, Arrays.copyOf(bytes, bytes.length - 3));
+            assertNull(cache.restore("broken", output));
+            assertFalse(Files.exists(broken));
+            assertEquals(oneEntry, cache.totalBytes());
+
+            // Неверная сигнатура - тоже испорченная запись
+            Files.write(cacheDir.resolve("good.entry"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            assertNull(cache.restore("good", output));
+            assertEquals(0, cache.totalBytes());
+
+            // Временный файл прерванного store не переживает open
+            Path leftover = cacheDir.resolve("abc123.tmp");
+            Files.writeString(leftover, "partial");
+            ResultCache.open(cacheDir, 1 << 20);
+            assertFalse(Files.exists(leftover));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 17: Двоичный результат через границы блоков сжатия")
+    void testBinaryResultBlockBoundaries() throws IOException {
+        // Два полных блока и неполный третий
+        int cols = 256;
+        int rows = 2 * ResultFile.BLOCK_CELLS / cols + 3;
+        MazeGrid grid = MazeGrid.parse(randomMaze(new Random(17), rows, cols));
+        DistanceMap result = IcePuzzleSolver.solvePuzzle(grid);
+        Path file = Files.createTempFile("maze", "_result.bin");
+        try {
+            for (boolean compressed : new boolean[]{false, true}) {
+                ResultFile.write(result, file, compressed);
+                try (ResultFile read = ResultFile.open(file)) {
+                    assertEquals(compressed, read.isCompressed());
+                    for (int cell = 0; cell < grid.size(); cell++) {
+                        assertEquals(result.label(cell), read.label(cell), "compressed=" + compressed + ", клетка " + cell);
+                    }
+                    // Соседи границ блоков - в обратном порядке, чтобы блоки распаковывались заново
+                    for (int b = 2; b >= 1; b--) {
+                        int boundary = b * ResultFile.BLOCK_CELLS;
+                        assertEquals(result.label(boundary), read.label(boundary));
+                        assertEquals(result.label(boundary - 1), read.label(boundary - 1));
+                    }
+                    int size = grid.size();
+                    assertThrows(IndexOutOfBoundsException.class, () -> read.label(size));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 18: Потоковое чтение файла совпадает с разбором строки")
+    void testMazeReaderParity() throws IOException {
+        String[] mazes = {
+            "+..0\r\n.0..\r\n...=\r\n",
+            "\n\n  +..0  \n\n.0..\n\t...=\t\n\n\n",
+            "+..0\n.0..\n...=",
+            "+..0\n.0..00\n...=..",
+            // BOM остаётся символом, как в Files.readString: лишняя свободная клетка
+            "\uFEFF+..0\n.0...\n...=.",
+            "+жж0\n.0ё.\nя..=",
+            "+\uD83E\uDDCA.0\n.0...\n....="
+        };
+        Path file = Files.createTempFile("maze", ".txt");
+        try {
+            for (String maze : mazes) {
+                Files.writeString(file, maze);
+                MazeGrid read = MazeGrid.read(file);
+                assertSameGrid(MazeGrid.parse(Files.readString(file)), read, maze);
+                // Старый разбор по символам-строкам: прямоугольные лабиринты без символов вне BMP
+                if (!maze.contains("\uD83E") && !maze.contains("00\n")) {
+                    assertSameGrid(MazeGrid.of(IcePuzzleSolver.parseInput(maze)), read, maze);
+                }
+            }
+
+            // Короткая строка и пустой файл - та же ошибка, что у parse
+            for (String bad : new String[]{"+..0\n.0\n...=", " \r\n\n\t\n"}) {
+                Files.writeString(file, bad);
+                assertThrows(IllegalArgumentException.class, () -> MazeGrid.parse(bad));
+                assertThrows(IllegalArgumentException.class, () -> MazeGrid.read(file));
+            }
+
+            // Файл в несколько буферов чтения: многобайтные символы и CRLF
+            // попадают на границы буфера в разных местах строки
+            Random random = new Random(18);
+            String[] tokens = {".", "0", "ж", "\uD83E\uDDCA"};
+            StringBuilder big = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                StringBuilder row = new StringBuilder(i == 0 ? "+" : "");
+                while (row.length() < 600) {
+                    String token = tokens[random.nextInt(tokens.length)];
+                    row.append(row.length() + token.length() > 600 ? "." : token);
+                }
+                big.append(row).append(i == 299 ? "=" : "").append(i % 2 == 0 ? "\r\n" : "\n");
+            }
+            Files.writeString(file, big);
+            assertTrue(Files.size(file) > 3 * (1 << 16));
+            assertSameGrid(MazeGrid.parse(big.toString()), MazeGrid.read(file), "big maze");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 19: writeOutput пишет в файл ровно formatOutput")
+    void testWriteOutputMatchesFormat() throws IOException {
+        Path file = Files.createTempFile("maze", "_result.txt");
+        try {
+            String[] mazes = {
+                String.join("\n", "+..0", ".0..", "...="),
+                String.join("\n", "+.0..", "000..", "..0.="),
+                String.join("\n", "+..", ".0.", "..."),
+                randomMaze(new Random(19), 120, 90)
+            };
+            for (String maze : mazes) {
+                DistanceMap result = IcePuzzleSolver.solve(MazeGrid.parse(maze));
+                IcePuzzleSolver.writeOutput(result, file);
+                assertArrayEquals(IcePuzzleSolver.formatOutput(result).getBytes(StandardCharsets.UTF_8),
+                                  Files.readAllBytes(file), maze);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Тест 20: Отчёт пакета не зависит от числа потоков и идёт по порядку имён")
+    void testBatchReportOrder() throws IOException {
+        Path dir = Files.createTempDirectory("maze-batch");
+        try {
+            Random random = new Random(20);
+            // maze10 идёт между maze1 и maze2 - порядок имён, а не номеров
+            String[] names = {"maze1.txt", "maze2.txt", "maze3.txt", "maze10.txt", "maze_big.txt", "maze_bad.txt"};
+            for (String name : names) {
+                int size = name.equals("maze_big.txt") ? 400 : 5 + random.nextInt(60);
+                Files.writeString(dir.resolve(name), randomMaze(random, size, size));
+            }
+            Files.writeString(dir.resolve("maze_bad.txt"), "+..0\n.0\n...=");
+
+            List<String> single = batchReport(dir, 1);
+            List<String> parallel = batchReport(dir, 4);
+
+            // Строка итогов - одна, с обеими скоростями; без неё отчёты совпадают построчно
+            for (List<String> report : List.of(single, parallel)) {
+                List<String> summary = report.stream().filter(line -> line.startsWith("Processed ")).collect(Collectors.toList());
+                assertEquals(1, summary.size(), String.join("\n", report));
+                assertTrue(summary.get(0).startsWith("Processed 6 files (1 failed)"), summary.get(0));
+                assertTrue(summary.get(0).contains(" files/sec, ") && summary.get(0).endsWith(" cells/sec"), summary.get(0));
+                assertEquals(summary.get(0), report.get(report.size() - 1));
+            }
+            assertEquals(single.subList(0, single.size() - 1), parallel.subList(0, parallel.size() - 1));
+
+            List<String> processed = single.stream().filter(line -> line.startsWith("Processing: "))
+                                           .map(line -> line.substring("Processing: ".length()))
+                                           .collect(Collectors.toList());
+            List<String> sorted = new ArrayList<>(List.of(names));
+            sorted.sort(null);
+            assertEquals(sorted, processed);
+            assertTrue(Files.exists(dir.resolve("maze10_result.txt")));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // Печать пакета на threads потоках, по строкам
+    private static List<String> batchReport(Path dir, int threads) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            // Стек ошибки maze_bad.txt печатается в stderr - в тесте он не нужен
+            System.setErr(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+            IcePuzzleSolver.processMazeFiles(dir, BatchOptions.defaults().parallelism(threads));
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        return List.of(captured.toString(StandardCharsets.UTF_8).split("\\R"));
+    }
+
+    private static void assertSameGrid(MazeGrid expected, MazeGrid actual, String message) {
+        assertEquals(expected.rows(), actual.rows(), message);
+        assertEquals(expected.cols(), actual.cols(), message);
+        for (int cell = 0; cell < expected.size(); cell++) {
+            assertEquals(expected.at(cell), actual.at(cell), message + ", клетка " + cell);
+        }
+    }
+
+    // Случайный лабиринт: стены '0', одна-две цели '=', старт '+'
+    static String randomMaze(Random random, int rows, int cols) {
+        double density = random.nextDouble() * 0.5;
+        StringBuilder maze = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                double p = random.nextDouble();
+                maze.append(p < density ? '0' : p < density + 0.01 ? '=' : p < density + 0.02 ? '+' : '.');
+            }
+            maze.append('\n');
+        }
+        return maze.toString();
+    }
+}
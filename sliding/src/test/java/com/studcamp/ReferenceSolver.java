@@ -0,0 +1,141 @@
+package com.studcamp;
+
+import java.util.Arrays;
+
+// Прежняя реализация solvePuzzle: для каждой клетки обратного луча скольжение
+// заново моделируется до стены, поэтому расширение клетки квадратично по длине коридора.
+// Оставлена как эталон для разностных тестов быстрой версии;
+// как и она, ищет сразу от всех клеток '='.
+class ReferenceSolver {
+    
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    
+    static DistanceMap solvePuzzle(MazeGrid grid) {
+        if (grid.target() == -1) {
+            return DistanceMap.withoutTarget(grid);
+        }
+        
+        // Расстояния по упакованным индексам клеток - инициализируем бесконечностью.
+        // Клетка посещена, если расстояние уже не бесконечно
+        int[] distances = new int[grid.size()];
+        Arrays.fill(distances, DistanceMap.UNREACHABLE);
+        
+        // Очередь BFS - массив индексов: каждая клетка попадает в неё не больше одного раза
+        int[] queue = new int[grid.size()];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.at(cell) == MazeGrid.TARGET) {
+                distances[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        
+        while (head < tail) {
+            int current = queue[head++];
+            
+            // Для текущей клетки ищем все клетки, откуда можно прийти ОДНИМ свайпом
+            // Это клетки, от которых можно скользить и остановиться в текущей позиции
+            for (int[] dir : DIRECTIONS) {
+                // Находим все возможные стартовые позиции для свайпа в направлении dir,
+                // которые заканчиваются в current
+                tail = findSlideStarts(current, dir, grid, distances, queue, tail);
+            }
+        }
+        
+        return new DistanceMap(grid, distances);
+    }
+    
+    // Возвращает новый хвост очереди
+    private static int findSlideStarts(int end, int[] dir, MazeGrid grid,
+                                       int[] distances, int[] queue, int tail) {
+        int n = grid.rows();
+        int m = grid.cols();
+        
+        // Идем в ПРОТИВОПОЛОЖНОМ направлении от конечной точки
+        // чтобы найти, откуда можно начать скольжение
+        int reverseDirX = -dir[0];
+        int reverseDirY = -dir[1];
+        
+        // Начинаем с клетки перед конечной в обратном направлении
+        int checkX = end / m + reverseDirX;
+        int checkY = end % m + reverseDirY;
+        
+        // Если эта клетка вне границ или препятствие - нельзя начать скольжение отсюда
+        if (checkX < 0 || checkX >= n || checkY < 0 || checkY >= m ||
+            grid.isWall(grid.cell(checkX, checkY))) {
+            return tail;
+        }
+        
+        // Теперь идем назад по траектории скольжения, собирая все возможные стартовые позиции
+        int currentX = checkX;
+        int currentY = checkY;
+        int newDist = distances[end] + 1;
+        
+        while (true) {
+            int current = grid.cell(currentX, currentY);
+            
+            // Проверяем, может ли скольжение из current в направлении dir
+            // закончиться в end
+            if (isValidSlideToTarget(currentX, currentY, dir, end, grid)) {
+                // Нашли валидную стартовую позицию
+                if (newDist < distances[current]) {
+                    distances[current] = newDist;
+                    queue[tail++] = current;
+                }
+            }
+            
+            // Двигаемся дальше в обратном направлении
+            int nextX = currentX + reverseDirX;
+            int nextY = currentY + reverseDirY;
+            
+            // Проверяем границы и препятствия
+            if (nextX < 0 || nextX >= n || nextY < 0 || nextY >= m ||
+                grid.isWall(grid.cell(nextX, nextY))) {
+                break;
+            }
+            
+            currentX = nextX;
+            currentY = nextY;
+        }
+        return tail;
+    }
+    
+    private static boolean isValidSlideToTarget(int startX, int startY, int[] dir,
+                                                int target, MazeGrid grid) {
+        int n = grid.rows();
+        int m = grid.cols();
+        
+        int currentX = startX;
+        int currentY = startY;
+        
+        // Моделируем скольжение от стартовой позиции
+        while (true) {
+            // Двигаемся в направлении скольжения
+            int nextX = currentX + dir[0];
+            int nextY = currentY + dir[1];
+            
+            // Проверяем границы
+            if (nextX < 0 || nextX >= n || nextY < 0 || nextY >= m) {
+                // Достигли границы - проверяем, остановились ли мы на цели
+                return grid.cell(currentX, currentY) == target;
+            }
+            
+            // Проверяем препятствия
+            if (grid.isWall(grid.cell(nextX, nextY))) {
+                // Достигли препятствия - проверяем, остановились ли мы на цели
+                return grid.cell(currentX, currentY) == target;
+            }
+            
+            // Переходим к следующей клетке
+            currentX = nextX;
+            currentY = nextY;
+            
+            // Если достигли целевой позиции - проверяем, можем ли здесь остановиться
+            if (grid.cell(currentX, currentY) == target) {
+                // Можем остановиться на цели
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.studcamp;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Ручной замер масштабирования параллельного BFS (не запускается surefire).
+// Запуск после mvn test-compile, с запасом кучи около 6 байт на клетку:
+//   java -Xmx3g -cp target/classes:target/test-classes com.studcamp.SolverBenchmark [клеток...]
+// По умолчанию - квадратные лабиринты на 10^7, 3*10^7 и 10^8 клеток.
+// Для каждого печатается время последовательного solve и параллельного
+// поиска на 1, 2, 4, ... потоках до числа ядер, лучшее из трёх запусков
+public class SolverBenchmark {
+
+    public static void main(String[] args) {
+        long[] sizes = {10_000_000L, 30_000_000L, 100_000_000L};
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Long.parseLong(args[i]);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (long cells : sizes) {
+            int side = (int) Math.sqrt(cells);
+            MazeGrid grid = randomGrid(side, 0.2, 42);
+            System.out.printf("Лабиринт %dx%d (%d клеток), ядер: %d%n", side, side, grid.size(), cores);
+
+            long[] checksum = new long[1];
+            double sequential = best(() -> checksum[0] = checksum(IcePuzzleSolver.solve(grid)));
+            System.out.printf("  %-14s %10.1f мс%n", "solve", sequential);
+            for (int threads = 1; threads <= Math.max(cores, 1); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    long[] parallel = new long[1];
+                    double ms = best(() -> parallel[0] = checksum(ParallelBfs.solve(grid, pool)));
+                    System.out.printf("  %-14s %10.1f мс  x%.2f%s%n", "parallel x" + threads, ms, sequential / ms,
+                                      parallel[0] == checksum[0] ? "" : "  РАСХОЖДЕНИЕ");
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    static double best(Runnable solve) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            solve.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+    // Сумма расстояний - сверка результатов без хранения двух полей сразу
+    static long checksum(DistanceMap result) {
+        long sum = 0;
+        for (int cell = 0; cell < result.grid().size(); cell++) {
+            int distance = result.distance(cell);
+            sum = sum * 31 + (distance == DistanceMap.UNREACHABLE ? -1 : distance);
+        }
+        return sum;
+    }
+
+    // Стены с плотностью density и одна цель в середине, без текстового представления
+    static MazeGrid randomGrid(int side, double density, long seed) {
+        Random random = new Random(seed);
+        byte[] cells = new byte[side * side];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = random.nextDouble() < density ? MazeGrid.WALL : MazeGrid.FREE;
+        }
+        cells[side / 2 * side + side / 2] = MazeGrid.TARGET;
+        return new MazeGrid(side, side, cells);
+    }
+}